@@ -0,0 +1,250 @@
+package com.catamaran.catamaranbackend.auth.application.service;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.EmailOutboxEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.EmailOutboxRepositoryJpa;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envía los correos de la bandeja de salida (email_outbox) en segundo plano.
+ * <p>
+ * Cada lote toma hasta mail.outbox.batch-size correos vencidos en una transacción corta
+ * (FOR UPDATE SKIP LOCKED, y el próximo intento se corre mail.outbox.lease para que otra instancia
+ * no los repita), los envía con una sola conexión SMTP y registra el resultado en otra
+ * transacción: los enviados se borran y los fallidos se reintentan con espera exponencial hasta
+ * mail.outbox.max-attempts, después quedan como FALLIDO. Ninguna conexión a la base queda abierta
+ * mientras se habla con el servidor de correo. Una ronda envía a lo sumo mail.outbox.max-per-round
+ * correos y el resto queda para la siguiente, así una cola larga o un servidor lento no retienen
+ * el hilo del planificador.
+ * <p>
+ * Si la conexión al servidor (o la autenticación) falla mail.outbox.circuit-threshold rondas
+ * seguidas, el envío se suspende durante mail.outbox.circuit-open; pasado ese tiempo se prueba con
+ * un solo correo y, si el servidor responde, se vuelve a enviar en lotes. Un destinatario rechazado
+ * no cuenta como falla del servidor: ese correo queda como FALLIDO sin más intentos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxSender {
+
+    private final EmailOutboxRepositoryJpa emailOutboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-per-round:100}")
+    private int maxPerRound;
+
+    @Value("${mail.outbox.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.retry-base:PT30S}")
+    private Duration retryBase;
+
+    @Value("${mail.outbox.retry-max:PT1H}")
+    private Duration retryMax;
+
+    @Value("${mail.outbox.circuit-threshold:3}")
+    private int circuitThreshold;
+
+    @Value("${mail.outbox.circuit-open:PT5M}")
+    private Duration circuitOpen;
+
+    @Value("${mail.outbox.failed-retention:P7D}")
+    private Duration failedRetention;
+
+    private record Failure(String error, boolean permanent) {}
+
+    // Estado del circuito; solo lo tocan las rondas de drain, que no se solapan
+    private int consecutiveFailures;
+    private Instant openUntil;
+    private boolean halfOpen;
+
+    /**
+     * Envía los correos vencidos, lote tras lote, hasta vaciar la cola, llegar a
+     * mail.outbox.max-per-round o hasta que el servidor falle.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:PT5S}",
+            initialDelayString = "${mail.outbox.initial-delay:PT10S}")
+    public synchronized void drain() {
+        int processed = 0;
+        while (processed < maxPerRound) {
+            Instant now = Instant.now();
+            if (openUntil != null) {
+                if (now.isBefore(openUntil)) {
+                    return;
+                }
+                openUntil = null;
+                halfOpen = true;
+                log.info("Bandeja de salida: probando de nuevo el servidor de correo");
+            }
+
+            int limit = halfOpen ? 1 : Math.min(batchSize, maxPerRound - processed);
+            List<EmailOutboxEntity> batch = claim(now, limit);
+            if (batch.isEmpty()) {
+                return;
+            }
+            processed += batch.size();
+            boolean serverReachable = send(batch);
+            if (!serverReachable || batch.size() < limit) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Borra los correos que agotaron sus intentos hace más de mail.outbox.failed-retention.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval:PT6H}")
+    public void purgeFailed() {
+        Instant before = Instant.now().minus(failedRetention);
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status ->
+                emailOutboxRepository.deleteByStatusCreatedBefore(EmailOutboxEntity.Status.FALLIDO, before));
+        if (deleted != null && deleted > 0) {
+            log.info("Bandeja de salida: {} correos fallidos eliminados", deleted);
+        }
+    }
+
+    private List<EmailOutboxEntity> claim(Instant now, int limit) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<EmailOutboxEntity> due = emailOutboxRepository.findDueForUpdate(
+                    EmailOutboxEntity.Status.PENDIENTE, now, PageRequest.of(0, limit));
+            Instant leaseEnd = now.plus(lease);
+            due.forEach(email -> email.setNextAttemptAt(leaseEnd));
+            return due;
+        });
+    }
+
+    /**
+     * Envía el lote por una sola conexión y registra el resultado.
+     *
+     * @return false si no se pudo hablar con el servidor (ningún correo salió)
+     */
+    private boolean send(List<EmailOutboxEntity> batch) {
+        Map<Long, Failure> failures = new HashMap<>();
+        Map<MimeMessage, Long> messages = new LinkedHashMap<>();
+        for (EmailOutboxEntity email : batch) {
+            try {
+                messages.put(emailService.buildMessage(email), email.getId());
+            } catch (MessagingException e) {
+                // Dirección o contenido inválidos: no depende del servidor
+                failures.put(email.getId(), new Failure(e.getMessage(), false));
+            }
+        }
+
+        boolean serverReachable = true;
+        if (!messages.isEmpty()) {
+            try {
+                // JavaMailSenderImpl abre un solo Transport para todo el arreglo
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailAuthenticationException e) {
+                messages.values().forEach(id -> failures.put(id, new Failure(e.getMessage(), false)));
+                serverReachable = false;
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) ->
+                        failures.put(messages.get(message), new Failure(String.valueOf(cause.getMessage()), rejected(cause))));
+                // Solo las fallas de conexión traen causa ("Mail server connection failed"); un destinatario
+                // rechazado falla su propio correo y no cuenta para el circuito
+                serverReachable = e.getCause() == null;
+            } catch (MailException e) {
+                messages.values().forEach(id -> failures.put(id, new Failure(e.getMessage(), false)));
+                serverReachable = false;
+            }
+        }
+
+        record(batch, failures);
+        updateCircuit(serverReachable || messages.isEmpty());
+        return serverReachable;
+    }
+
+    private void record(List<EmailOutboxEntity> batch, Map<Long, Failure> failures) {
+        List<Long> sent = new ArrayList<>();
+        batch.stream().map(EmailOutboxEntity::getId).filter(id -> !failures.containsKey(id)).forEach(sent::add);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                emailOutboxRepository.deleteAllByIdInBatch(sent);
+            }
+            if (failures.isEmpty()) {
+                return;
+            }
+            Instant now = Instant.now();
+            for (EmailOutboxEntity email : emailOutboxRepository.findAllById(failures.keySet())) {
+                Failure failure = failures.get(email.getId());
+                int attempts = email.getAttempts() + 1;
+                email.setAttempts(attempts);
+                email.setLastError(truncate(failure.error()));
+                if (failure.permanent() || attempts >= maxAttempts) {
+                    email.setStatus(EmailOutboxEntity.Status.FALLIDO);
+                    email.setSealedSecret(null);
+                    log.error("Bandeja de salida: el correo {} para {} se descarta tras {} intentos: {}",
+                            email.getId(), email.getRecipient(), attempts, email.getLastError());
+                } else {
+                    email.setNextAttemptAt(now.plus(backoff(attempts)));
+                }
+            }
+        });
+        log.info("Bandeja de salida: {} correos enviados, {} con error", sent.size(), failures.size());
+    }
+
+    private void updateCircuit(boolean success) {
+        if (success) {
+            if (halfOpen || consecutiveFailures > 0) {
+                log.info("Bandeja de salida: servidor de correo disponible");
+            }
+            consecutiveFailures = 0;
+            halfOpen = false;
+            return;
+        }
+        consecutiveFailures++;
+        if (halfOpen || consecutiveFailures >= circuitThreshold) {
+            openUntil = Instant.now().plus(circuitOpen);
+            halfOpen = false;
+            log.warn("Bandeja de salida: {} fallas seguidas del servidor de correo, envío suspendido hasta {}",
+                    consecutiveFailures, openUntil);
+        }
+    }
+
+    // El servidor rechazó la dirección (5xx en RCPT): reintentar no cambia el resultado
+    private static boolean rejected(Exception cause) {
+        return cause instanceof SendFailedException failed
+                && failed.getInvalidAddresses() != null && failed.getInvalidAddresses().length > 0;
+    }
+
+    // retry-base, el doble en cada intento, hasta retry-max
+    private Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(retryMax) > 0 ? retryMax : delay;
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
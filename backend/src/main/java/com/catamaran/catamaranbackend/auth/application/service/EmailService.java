@@ -1,5 +1,7 @@
 package com.catamaran.catamaranbackend.auth.application.service;
 
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.EmailOutboxEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.EmailOutboxRepositoryJpa;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -8,13 +10,31 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
+    // Lugar del token en el cuerpo guardado; se reemplaza recién al armar el mensaje
+    static final String SECRET_PLACEHOLDER = "{{token}}";
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepositoryJpa emailOutboxRepository;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -25,28 +45,90 @@ public class EmailService {
     @Value("${app.admin.email:gabrielbarrantes45@gmail.com}")
     private String adminEmail;
 
-    public void sendPasswordResetEmail(String userEmail, String resetToken, String userName) {
+    @Value("${mail.outbox.secret-key:${jwt.secret.password}}")
+    private String secretKey;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Deja el correo de recuperación en la bandeja de salida, dentro de la transacción de quien lo
+     * pide: si la transacción se revierte el correo no sale, y el envío SMTP (EmailOutboxSender)
+     * no retiene el hilo de la solicitud ni su conexión a la base.
+     * <p>
+     * El token no queda legible en email_outbox: el cuerpo se guarda con un marcador y el token va
+     * cifrado (AES-GCM, clave mail.outbox.secret-key) en sealedSecret hasta que se envía.
+     */
+    @Transactional
+    public void queuePasswordResetEmail(String userEmail, String resetToken, String userName) {
+        String resetLink = frontendUrl + "/reset-password.html?token=" + SECRET_PLACEHOLDER;
+        String htmlContent = buildPasswordResetEmailTemplate(userName, userEmail, resetLink);
+
+        Instant now = Instant.now();
+        emailOutboxRepository.save(EmailOutboxEntity.builder()
+                .recipient(userEmail) // Send to the user who requested password recovery
+                .subject("Solicitud de Recuperación de Contraseña - Catamaran")
+                .htmlBody(htmlContent)
+                .sealedSecret(seal(resetToken))
+                .status(EmailOutboxEntity.Status.PENDIENTE)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        log.info("Email de recuperación de contraseña encolado para el usuario: {}", userEmail);
+    }
+
+    /**
+     * Arma el mensaje MIME de un correo de la bandeja de salida.
+     */
+    public MimeMessage buildMessage(EmailOutboxEntity email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        String body = email.getHtmlBody();
+        if (email.getSealedSecret() != null) {
+            body = body.replace(SECRET_PLACEHOLDER, unseal(email.getSealedSecret()));
+        }
+        helper.setText(body, true);
+        return message;
+    }
+
+    private String seal(String secret) {
+        try {
+            byte[] iv = new byte[GCM_IV_BYTES];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, outboxKey(), new GCMParameterSpec(GCM_TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = new byte[iv.length + encrypted.length];
+            System.arraycopy(iv, 0, sealed, 0, iv.length);
+            System.arraycopy(encrypted, 0, sealed, iv.length, encrypted.length);
+            return Base64.getEncoder().encodeToString(sealed);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo cifrar el token del correo", e);
+        }
+    }
+
+    private String unseal(String sealed) throws MessagingException {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(userEmail); // Send to the user who requested password recovery
-            helper.setSubject("Solicitud de Recuperación de Contraseña - Catamaran");
-
-            String resetLink = frontendUrl + "/reset-password.html?token=" + resetToken;
-            
-            String htmlContent = buildPasswordResetEmailTemplate(userName, userEmail, resetLink);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Email de recuperación de contraseña enviado al usuario: {}", userEmail);
-        } catch (MessagingException e) {
-            log.error("Error al enviar email de recuperación de contraseña para el usuario: {}", userEmail, e);
-            throw new RuntimeException("Error al enviar el email de recuperación", e);
+            byte[] bytes = Base64.getDecoder().decode(sealed);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, outboxKey(), new GCMParameterSpec(GCM_TAG_BITS, bytes, 0, GCM_IV_BYTES));
+            byte[] secret = cipher.doFinal(bytes, GCM_IV_BYTES, bytes.length - GCM_IV_BYTES);
+            return new String(secret, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // Clave cambiada o dato alterado: el correo no se puede armar
+            throw new MessagingException("No se pudo descifrar el token del correo", e);
         }
     }
 
+    private SecretKeySpec outboxKey() throws GeneralSecurityException {
+        byte[] key = MessageDigest.getInstance("SHA-256")
+                .digest(("email-outbox:" + secretKey).getBytes(StandardCharsets.UTF_8));
+        return new SecretKeySpec(key, "AES");
+    }
+
     private String buildPasswordResetEmailTemplate(String userName, String userEmail, String resetLink) {
         return """
             <!DOCTYPE html>
@@ -3,27 +3,55 @@ package com.catamaran.catamaranbackend.auth.application.service;
 import com.catamaran.catamaranbackend.auth.application.dto.ForgotPasswordRequest;
 import com.catamaran.catamaranbackend.auth.application.dto.PasswordResetResponse;
 import com.catamaran.catamaranbackend.auth.application.dto.ResetPasswordRequest;
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.PasswordResetTokenEntity;
 import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.PasswordResetTokenRepositoryJpa;
 import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.time.LocalDateTime;
-import java.util.UUID;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Recuperación de contraseña. Los tokens viven en password_reset_tokens: el usuario recibe el
+ * token por correo y en la base solo queda su SHA-256, así que validar o usar un token es una
+ * búsqueda por el índice único del hash. Usar un token invalida todos los del usuario, y los
+ * vencidos se borran por lotes (password-reset.purge-batch-size) en purgeExpired.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PasswordRecoveryService {
 
     private final UserRepositoryJpa userRepository;
+    private final PasswordResetTokenRepositoryJpa resetTokenRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final PlatformTransactionManager transactionManager;
 
     private static final int TOKEN_EXPIRY_HOURS = 1;
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${password-reset.purge-batch-size:1000}")
+    private int purgeBatchSize;
 
     @Transactional
     public PasswordResetResponse requestPasswordReset(ForgotPasswordRequest request) {
@@ -31,21 +59,22 @@ public class PasswordRecoveryService {
             UserEntity user = userRepository.findByEmail(request.getEmail())
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado con el email: " + request.getEmail()));
 
-            // Generate reset token
-            String resetToken = UUID.randomUUID().toString();
-            
-            // Set token and expiry
-            user.setResetToken(resetToken);
-            user.setResetTokenExpiry(LocalDateTime.now().plusHours(TOKEN_EXPIRY_HOURS));
-            
-            userRepository.save(user);
-
-            // Send email to user with password reset instructions
+            // Generate reset token; only its hash is stored
+            String resetToken = newToken();
+            Instant now = Instant.now();
+            resetTokenRepository.save(PasswordResetTokenEntity.builder()
+                    .tokenHash(hash(resetToken))
+                    .user(user)
+                    .expiresAt(now.plus(Duration.ofHours(TOKEN_EXPIRY_HOURS)))
+                    .createdAt(now)
+                    .build());
+
+            // Queue email to user with password reset instructions (sent by EmailOutboxSender)
             String userName = user.getFullName() != null ? user.getFullName() : user.getUsername();
-            emailService.sendPasswordResetEmail(user.getEmail(), resetToken, userName);
+            emailService.queuePasswordResetEmail(user.getEmail(), resetToken, userName);
 
             log.info("Solicitud de recuperación de contraseña procesada para: {}", request.getEmail());
-            
+
             return new PasswordResetResponse(
                 "Se ha enviado un correo electrónico con las instrucciones para restablecer tu contraseña",
                 true
@@ -63,25 +92,20 @@ public class PasswordRecoveryService {
     @Transactional
     public PasswordResetResponse resetPassword(ResetPasswordRequest request) {
         try {
-            UserEntity user = userRepository.findByResetToken(request.getToken())
+            // Un token vencido no se encuentra: la consulta ya filtra por expiresAt
+            PasswordResetTokenEntity resetToken = resetTokenRepository.findActiveWithUser(hash(request.getToken()), Instant.now())
                     .orElseThrow(() -> new RuntimeException("Token inválido o expirado"));
-
-            // Verify token expiry
-            if (user.getResetTokenExpiry() == null || user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-                throw new RuntimeException("El token ha expirado");
-            }
+            UserEntity user = resetToken.getUser();
 
             // Update password
             user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-            
-            // Clear reset token
-            user.setResetToken(null);
-            user.setResetTokenExpiry(null);
-            
             userRepository.save(user);
 
+            // Clear every reset token of the user, not only the one used
+            resetTokenRepository.deleteByUserId(user.getId());
+
             log.info("Contraseña restablecida exitosamente para el usuario: {}", user.getEmail());
-            
+
             return new PasswordResetResponse(
                 "Tu contraseña ha sido restablecida exitosamente. Ya puedes iniciar sesión con tu nueva contraseña",
                 true
@@ -96,18 +120,52 @@ public class PasswordRecoveryService {
     }
 
     public PasswordResetResponse validateResetToken(String token) {
-        try {
-            UserEntity user = userRepository.findByResetToken(token)
-                    .orElseThrow(() -> new RuntimeException("Token inválido"));
+        if (token != null && resetTokenRepository.existsActive(hash(token), Instant.now())) {
+            return new PasswordResetResponse("Token válido", true);
+        }
+        log.warn("Token de recuperación inválido o expirado");
+        return new PasswordResetResponse("Token inválido o expirado", false);
+    }
 
-            if (user.getResetTokenExpiry() == null || user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-                throw new RuntimeException("Token expirado");
+    /**
+     * Borra los tokens vencidos de a password-reset.purge-batch-size filas, cada lote en su propia
+     * transacción, para no retener bloqueos sobre toda la tabla.
+     */
+    @Scheduled(fixedDelayString = "${password-reset.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            Integer deleted = transaction.execute(status -> {
+                List<Long> expired = resetTokenRepository.findExpiredIds(now, PageRequest.of(0, purgeBatchSize));
+                if (!expired.isEmpty()) {
+                    resetTokenRepository.deleteAllByIdInBatch(expired);
+                }
+                return expired.size();
+            });
+            total += deleted != null ? deleted : 0;
+            if (deleted == null || deleted < purgeBatchSize) {
+                break;
             }
+        }
+        if (total > 0) {
+            log.info("Tokens de recuperación vencidos eliminados: {}", total);
+        }
+    }
 
-            return new PasswordResetResponse("Token válido", true);
-        } catch (RuntimeException e) {
-            log.error("Token de recuperación inválido o expirado", e);
-            return new PasswordResetResponse("Token inválido o expirado", false);
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.catamaran.catamaranbackend.auth.application.service;
+
+import com.catamaran.catamaranbackend.auth.security.LoginUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verificación BCrypt de los logins en un pool propio y acotado. BCrypt es CPU pura: con
+ * auth.login.bcrypt-workers hilos (por defecto la mitad de los núcleos) una ráfaga de logins no
+ * puede ocupar toda la CPU, y con la cola acotada el exceso se rechaza enseguida (503) en lugar de
+ * retener hilos de Tomcat. Se mide el tiempo que cada verificación pasa en la cola.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordVerificationService {
+
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${auth.login.bcrypt-workers:0}")
+    private int workers;
+
+    @Value("${auth.login.bcrypt-queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${auth.login.bcrypt-timeout:PT5S}")
+    private Duration timeout;
+
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compara la contraseña con su hash en el pool de BCrypt.
+     *
+     * @throws LoginUnavailableException si la cola está llena o la verificación no termina a tiempo
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        long enqueuedAt = System.nanoTime();
+        Future<Boolean> verification;
+        try {
+            verification = executor.submit(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                started.increment();
+                queueNanos.add(waited);
+                maxQueueNanos.accumulateAndGet(waited, Math::max);
+                return passwordEncoder.matches(rawPassword, encodedPassword);
+            });
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new LoginUnavailableException("Demasiados inicios de sesión en curso, intente nuevamente en unos segundos", e);
+        }
+
+        try {
+            return verification.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            verification.cancel(true);
+            timedOut.increment();
+            throw new LoginUnavailableException("El inicio de sesión tardó demasiado, intente nuevamente", e);
+        } catch (InterruptedException e) {
+            verification.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginUnavailableException("Inicio de sesión interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la verificación de la contraseña", e.getCause());
+        }
+    }
+
+    /**
+     * Métricas del pool: verificaciones encoladas, rechazadas y vencidas, y espera en cola.
+     */
+    public Map<String, Object> metrics() {
+        long startedCount = started.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("workers", executor.getMaximumPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("submitted", submitted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("avgQueueMillis", startedCount > 0 ? queueNanos.sum() / startedCount / 1_000_000.0 : 0.0);
+        metrics.put("maxQueueMillis", maxQueueNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+}
@@ -0,0 +1,129 @@
+package com.catamaran.catamaranbackend.auth.application.service;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.RevokedTokenEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.RevokedTokenRepositoryJpa;
+import com.catamaran.catamaranbackend.auth.utils.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de tokens revocados por jti. La tabla revoked_tokens es la fuente de verdad; delante hay
+ * un filtro de Bloom en memoria, así que un token no revocado (el caso normal) se descarta sin ir
+ * a la base. Solo los positivos del filtro se confirman con una consulta, y los confirmados se
+ * recuerdan hasta que el token vence.
+ * <p>
+ * Cada instancia tiene su propio filtro: las revocaciones hechas en otras instancias se agregan
+ * leyendo cada jwt.revocation.poll-interval las filas con revokedAt posterior a la última lectura
+ * (menos poll-overlap, para no perder inserciones que confirmaron tarde ni desfasajes de reloj).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepositoryJpa revokedTokenRepository;
+
+    @Value("${jwt.revocation.expected-tokens:10000}")
+    private int expectedTokens;
+
+    @Value("${jwt.revocation.poll-overlap:PT1M}")
+    private Duration pollOverlap;
+
+    private final Object bloomLock = new Object();
+    private volatile BloomFilter bloomFilter;
+    private final Map<String, Instant> confirmedRevoked = new ConcurrentHashMap<>();
+    private volatile Instant lastPoll;
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    /**
+     * Revoca el token hasta su vencimiento. Los tokens sin jti no se pueden revocar y se ignoran.
+     */
+    public void revoke(DecodedJWT token) {
+        String jti = token.getId();
+        if (jti == null) {
+            return;
+        }
+        Instant expiresAt = token.getExpiresAtAsInstant() != null ? token.getExpiresAtAsInstant() : Instant.now();
+        revokedTokenRepository.save(RevokedTokenEntity.builder()
+                .jti(jti)
+                .expiresAt(expiresAt)
+                .revokedAt(Instant.now())
+                .build());
+        confirmedRevoked.put(jti, expiresAt);
+        // Después de guardar: si hay una reconstrucción en curso, o ya lo leyó de la base o lo agrega acá al filtro nuevo
+        synchronized (bloomLock) {
+            bloomFilter.put(jti);
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        if (confirmedRevoked.containsKey(jti)) {
+            return true;
+        }
+        // Positivo del filtro (revocado en otra instancia y ya leído por pollRevocations, o falso positivo): decide la base
+        Optional<RevokedTokenEntity> revoked = revokedTokenRepository.findById(jti);
+        revoked.ifPresent(entry -> confirmedRevoked.put(jti, entry.getExpiresAt()));
+        return revoked.isPresent();
+    }
+
+    /**
+     * Agrega al filtro las revocaciones hechas desde la última lectura, incluidas las de otras
+     * instancias. Sin esto, un token revocado en otra instancia daría negativo en este filtro.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval:PT5S}", initialDelayString = "${jwt.revocation.poll-interval:PT5S}")
+    public void pollRevocations() {
+        Instant now = Instant.now();
+        List<String> recent = revokedTokenRepository.findRevokedSince(lastPoll.minus(pollOverlap), now);
+        synchronized (bloomLock) {
+            recent.forEach(bloomFilter::put);
+        }
+        lastPoll = now;
+    }
+
+    /**
+     * Borra las revocaciones de tokens ya vencidos y rearma el filtro sin ellas
+     * (un filtro de Bloom no admite borrados).
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}", initialDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        confirmedRevoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        rebuild();
+        if (deleted > 0) {
+            log.info("Revocaciones vencidas eliminadas: {}", deleted);
+        }
+    }
+
+    private void rebuild() {
+        synchronized (bloomLock) {
+            // Lo revocado después de esta lectura lo agrega pollRevocations
+            lastPoll = Instant.now();
+            List<String> active = revokedTokenRepository.findActiveJtis(Instant.now());
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, active.size() * 2), BLOOM_FALSE_POSITIVE_RATE);
+            active.forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+        }
+    }
+}
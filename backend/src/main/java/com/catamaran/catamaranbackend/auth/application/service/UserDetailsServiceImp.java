@@ -1,6 +1,7 @@
 package com.catamaran.catamaranbackend.auth.application.service;
 
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.catamaran.catamaranbackend.auth.application.dto.*;
 import com.catamaran.catamaranbackend.auth.application.port.AuthenticateUseCase;
@@ -27,7 +28,6 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import com.catamaran.catamaranbackend.auth.security.InvalidCredentialsException;
 import com.catamaran.catamaranbackend.auth.security.UserNotFoundException;
 import com.catamaran.catamaranbackend.auth.security.UserInactiveException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -38,8 +38,9 @@ import java.util.Set;
 public class UserDetailsServiceImp implements LoginUseCase, AuthenticateUseCase, SearchUsernameUseCase, RefreshTokenUseCase, UserDetailsService {
 
     private final UserRepositoryJpa userRepository;
-    private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final PasswordVerificationService passwordVerificationService;
 
     @Override
     public AuthResponse login(AuthRequest authLoginRequest) {
@@ -55,7 +56,14 @@ public class UserDetailsServiceImp implements LoginUseCase, AuthenticateUseCase,
 
         Long id = userEntity.getId();
 
-        Authentication authentication = this.authenticate(new UserPrincipal(id, username, userEntity.getFullName()), password);
+        // Una sola lectura del usuario; BCrypt corre en el pool acotado de PasswordVerificationService
+        if (!passwordVerificationService.matches(password, userEntity.getPassword())) {
+            throw new InvalidCredentialsException("Contraseña incorrecta. Verifica tu contraseña.");
+        }
+
+        GrantedAuthority role = new SimpleGrantedAuthority("ROLE_".concat(userEntity.getRole().name()));
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(id, username, userEntity.getFullName()), null, Set.of(role));
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         String jwtToken = jwtUtils.createToken(authentication);
@@ -71,7 +79,7 @@ public class UserDetailsServiceImp implements LoginUseCase, AuthenticateUseCase,
             throw new InvalidCredentialsException("Credenciales inválidas. Verifica tu usuario y contraseña.");
         }
 
-        if (!passwordEncoder.matches(password, userDetails.getPassword())) {
+        if (!passwordVerificationService.matches(password, userDetails.getPassword())) {
             throw new InvalidCredentialsException("Contraseña incorrecta. Verifica tu contraseña.");
         }
 
@@ -91,6 +99,9 @@ public class UserDetailsServiceImp implements LoginUseCase, AuthenticateUseCase,
     public RefreshTokenResponse refreshToken(RefreshTokenRequest request) {
         try {
             DecodedJWT decodedJWT = jwtUtils.verifyToken(request.refreshToken());
+            if (tokenRevocationService.isRevoked(decodedJWT.getId())) {
+                throw new BadCredentialsException("Refresh token revocado");
+            }
             String username = jwtUtils.extractUsername(decodedJWT);
 
             UserEntity userEntity = userRepository.findByUsername(username)
@@ -116,6 +127,21 @@ public class UserDetailsServiceImp implements LoginUseCase, AuthenticateUseCase,
         }
     }
 
+    /**
+     * Cierra la sesión revocando el access token y, si viene, el refresh token (hasta que vencen).
+     * Un refresh token inválido o ya vencido no necesita revocarse.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        tokenRevocationService.revoke(jwtUtils.verifyToken(accessToken));
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            try {
+                tokenRevocationService.revoke(jwtUtils.verifyToken(refreshToken));
+            } catch (JWTVerificationException e) {
+                // Nada que revocar
+            }
+        }
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return searchUserDetails(username);
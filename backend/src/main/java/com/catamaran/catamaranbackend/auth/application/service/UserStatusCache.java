@@ -0,0 +1,69 @@
+package com.catamaran.catamaranbackend.auth.application.service;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estado activo/inactivo de los usuarios en memoria, para no leer el usuario en cada request
+ * autenticado. LRU acotado a auth.user-status.max-entries; cada entrada vale auth.user-status.ttl,
+ * así un cambio hecho en otra instancia (o por otro camino que AuthController) se ve a más tardar
+ * en ese tiempo. AuthController la actualiza al momento cuando cambia el estado o se borra el
+ * usuario. Un usuario borrado queda como inactivo.
+ */
+@Service
+public class UserStatusCache {
+
+    private record Entry(boolean active, Instant loadedAt) {}
+
+    private final UserRepositoryJpa userRepository;
+    private final Duration ttl;
+    private final Map<Long, Entry> entries;
+
+    public UserStatusCache(UserRepositoryJpa userRepository,
+                           @Value("${auth.user-status.max-entries:10000}") int maxEntries,
+                           @Value("${auth.user-status.ttl:PT30S}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isActive(Long userId) {
+        Instant now = Instant.now();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.loadedAt().plus(ttl).isAfter(now)) {
+                return entry.active();
+            }
+        }
+        // La consulta va fuera del candado; si mientras tanto llegó un cambio más nuevo, gana el cambio
+        boolean active = userRepository.findStatusById(userId).orElse(false);
+        synchronized (entries) {
+            Entry current = entries.get(userId);
+            if (current == null || current.loadedAt().isBefore(now)) {
+                entries.put(userId, new Entry(active, now));
+            }
+        }
+        return active;
+    }
+
+    public void statusChanged(Long userId, boolean active) {
+        synchronized (entries) {
+            entries.put(userId, new Entry(active, Instant.now()));
+        }
+    }
+
+    public void userDeleted(Long userId) {
+        statusChanged(userId, false);
+    }
+}
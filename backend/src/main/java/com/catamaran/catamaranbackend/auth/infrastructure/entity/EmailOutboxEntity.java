@@ -0,0 +1,62 @@
+package com.catamaran.catamaranbackend.auth.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Correo pendiente de envío. Se escribe en la misma transacción que lo origina y lo envía
+ * EmailOutboxSender en segundo plano; los enviados se borran y los que agotan los reintentos
+ * quedan como FALLIDO.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = @Index(name = "idx_email_outbox_status_next", columnList = "status, nextAttemptAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxEntity {
+
+    public enum Status {
+        PENDIENTE,
+        FALLIDO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String htmlBody;
+
+    // Token del enlace cifrado (ver EmailService); el cuerpo solo tiene un marcador. Se borra si el correo falla
+    @Column(length = 512)
+    private String sealedSecret;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Próximo intento; mientras un envío está en curso, fin del plazo reservado para ese envío
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,52 @@
+package com.catamaran.catamaranbackend.auth.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * Token de recuperación de contraseña. Solo se guarda el SHA-256 del token enviado por correo,
+ * bajo un índice único; un usuario puede tener varios vigentes a la vez. Al borrar el usuario
+ * la base borra sus tokens (ON DELETE CASCADE).
+ */
+@Entity
+@Table(name = "password_reset_tokens",
+        indexes = {
+                @Index(name = "uk_password_reset_tokens_hash", columnList = "tokenHash", unique = true),
+                @Index(name = "idx_password_reset_tokens_expires_at", columnList = "expiresAt"),
+                @Index(name = "idx_password_reset_tokens_user", columnList = "user_id")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordResetTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private UserEntity user;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
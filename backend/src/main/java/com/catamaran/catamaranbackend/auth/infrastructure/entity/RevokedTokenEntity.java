@@ -0,0 +1,34 @@
+package com.catamaran.catamaranbackend.auth.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Token revocado (logout) identificado por su jti. Se guarda hasta que el token vence por sí solo.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedTokenEntity {
+
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Momento de la revocación: las otras instancias leen las nuevas por esta columna
+    private Instant revokedAt;
+}
@@ -3,13 +3,15 @@ package com.catamaran.catamaranbackend.auth.infrastructure.entity;
 import com.catamaran.catamaranbackend.domain.BoatEntity;
 import com.catamaran.catamaranbackend.domain.Role;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import com.catamaran.catamaranbackend.domain.PaymentEntity;
@@ -20,6 +22,7 @@ import com.catamaran.catamaranbackend.domain.PaymentEntity;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class UserEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -46,15 +49,9 @@ public class UserEntity {
     private String fullName;
     private String phoneNumber;
 
-    @Column(name = "reset_token")
-    @JsonIgnore
-    private String resetToken;
-
-    @Column(name = "reset_token_expiry")
-    @JsonIgnore
-    private LocalDateTime resetTokenExpiry;
-
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<BoatEntity> boats;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.catamaran.catamaranbackend.auth.infrastructure.repository;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.EmailOutboxEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EmailOutboxRepositoryJpa extends JpaRepository<EmailOutboxEntity, Long> {
+
+    // FOR UPDATE SKIP LOCKED (lock.timeout -2): dos envíos concurrentes nunca toman el mismo correo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutboxEntity e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<EmailOutboxEntity> findDueForUpdate(@Param("status") EmailOutboxEntity.Status status,
+                                             @Param("now") Instant now,
+                                             Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutboxEntity e WHERE e.status = :status AND e.createdAt < :before")
+    int deleteByStatusCreatedBefore(@Param("status") EmailOutboxEntity.Status status, @Param("before") Instant before);
+}
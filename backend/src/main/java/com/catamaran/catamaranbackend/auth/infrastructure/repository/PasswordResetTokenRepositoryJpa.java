@@ -0,0 +1,29 @@
+package com.catamaran.catamaranbackend.auth.infrastructure.repository;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.PasswordResetTokenEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface PasswordResetTokenRepositoryJpa extends JpaRepository<PasswordResetTokenEntity, Long> {
+
+    // Búsqueda por el índice único del hash; el usuario viene en la misma consulta
+    @Query("SELECT t FROM PasswordResetTokenEntity t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash AND t.expiresAt > :now")
+    Optional<PasswordResetTokenEntity> findActiveWithUser(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+    @Query("SELECT COUNT(t) > 0 FROM PasswordResetTokenEntity t WHERE t.tokenHash = :tokenHash AND t.expiresAt > :now")
+    boolean existsActive(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM PasswordResetTokenEntity t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT t.id FROM PasswordResetTokenEntity t WHERE t.expiresAt <= :now ORDER BY t.id")
+    List<Long> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.catamaran.catamaranbackend.auth.infrastructure.repository;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.RevokedTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepositoryJpa extends JpaRepository<RevokedTokenEntity, String> {
+
+    @Query("SELECT r.jti FROM RevokedTokenEntity r WHERE r.expiresAt > :now")
+    List<String> findActiveJtis(@Param("now") Instant now);
+
+    @Query("SELECT r.jti FROM RevokedTokenEntity r WHERE r.revokedAt > :since AND r.expiresAt > :now")
+    List<String> findRevokedSince(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedTokenEntity r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
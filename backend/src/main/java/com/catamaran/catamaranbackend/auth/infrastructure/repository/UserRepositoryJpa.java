@@ -2,9 +2,12 @@ package com.catamaran.catamaranbackend.auth.infrastructure.repository;
 
 import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
 import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.dto.OwnerListRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,9 +17,39 @@ import java.util.Optional;
 public interface UserRepositoryJpa extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByUsername(String username);
     Optional<UserEntity> findByEmail(String email);
-    Optional<UserEntity> findByResetToken(String resetToken);
     Page<UserEntity> findAllByRole(Role role, Pageable pageable);
     UserEntity getUserEntityById(Long id);
 
+    @Query("SELECT u.status FROM UserEntity u WHERE u.id = :id")
+    Optional<Boolean> findStatusById(@Param("id") Long id);
+
     List<UserEntity> findByRole(Role role);
+
+    long countByRole(Role role);
+    long countByRoleAndStatus(Role role, Boolean status);
+
+    // Página de propietarios con su cantidad de botes y el total filtrado, en una sola consulta.
+    // searchPattern es '%term%' en minúsculas; el Pageable solo fija offset y límite.
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.OwnerListRow(" +
+           "u.id, u.email, u.username, u.fullName, u.phoneNumber, u.role, u.status, u.uniqueId, " +
+           "COUNT(b.id), COUNT(*) OVER ()) " +
+           "FROM UserEntity u LEFT JOIN u.boats b " +
+           "WHERE u.role = :role " +
+           "AND (:searchPattern IS NULL OR LOWER(u.fullName) LIKE :searchPattern " +
+           "OR LOWER(u.email) LIKE :searchPattern OR LOWER(u.username) LIKE :searchPattern) " +
+           "AND (:status IS NULL OR u.status = :status) " +
+           "GROUP BY u.id, u.email, u.username, u.fullName, u.phoneNumber, u.role, u.status, u.uniqueId " +
+           "ORDER BY u.id DESC")
+    List<OwnerListRow> findOwnerRows(@Param("role") Role role,
+                                     @Param("searchPattern") String searchPattern,
+                                     @Param("status") Boolean status,
+                                     Pageable page);
+
+    @Query("SELECT COUNT(u) FROM UserEntity u WHERE u.role = :role " +
+           "AND (:searchPattern IS NULL OR LOWER(u.fullName) LIKE :searchPattern " +
+           "OR LOWER(u.email) LIKE :searchPattern OR LOWER(u.username) LIKE :searchPattern) " +
+           "AND (:status IS NULL OR u.status = :status)")
+    long countOwnerRows(@Param("role") Role role,
+                        @Param("searchPattern") String searchPattern,
+                        @Param("status") Boolean status);
 }
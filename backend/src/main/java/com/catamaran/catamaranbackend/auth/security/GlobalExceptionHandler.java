@@ -1,5 +1,6 @@
 package com.catamaran.catamaranbackend.auth.security;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -45,6 +46,28 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.UNAUTHORIZED, "USER_INACTIVE");
     }
 
+    /**
+     * Maneja intentos de login rechazados por exceso de intentos
+     */
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyLoginAttemptsException(
+            TooManyLoginAttemptsException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildErrorResponse(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_ATTEMPTS").getBody());
+    }
+
+    /**
+     * Maneja logins rechazados porque la verificación de contraseñas está saturada
+     */
+    @ExceptionHandler(LoginUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleLoginUnavailableException(
+            LoginUnavailableException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(buildErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, "LOGIN_BUSY").getBody());
+    }
+
     /**
      * Maneja excepciones de credenciales inválidas de Spring Security
      */
@@ -0,0 +1,106 @@
+package com.catamaran.catamaranbackend.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Límite de intentos de login con token buckets por IP y por nombre de usuario. Se consulta antes
+ * de leer el usuario o correr BCrypt, así que un intento rechazado no cuesta ni una consulta.
+ * Cada bucket admite una ráfaga de *-capacity intentos y se recarga a *-per-minute por minuto.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Map<String, TokenBucket> byIp = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> byUsername = new ConcurrentHashMap<>();
+
+    @Value("${auth.login.ip-capacity:20}")
+    private int ipCapacity;
+
+    @Value("${auth.login.ip-per-minute:20}")
+    private int ipPerMinute;
+
+    @Value("${auth.login.username-capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${auth.login.username-per-minute:5}")
+    private int usernamePerMinute;
+
+    /**
+     * Descuenta un intento de la IP y del usuario.
+     *
+     * @throws TooManyLoginAttemptsException si alguno de los dos agotó sus intentos
+     */
+    public void acquire(String clientIp, String username) {
+        long now = System.nanoTime();
+        TokenBucket ipBucket = byIp.computeIfAbsent(clientIp, key -> new TokenBucket(ipCapacity, ipPerMinute, now));
+        long ipWait = ipBucket.tryConsume(now);
+        if (ipWait > 0) {
+            throw new TooManyLoginAttemptsException(
+                    "Demasiados intentos de inicio de sesión desde esta dirección. Intente más tarde.", ipWait);
+        }
+
+        if (username != null) {
+            String key = username.trim().toLowerCase(Locale.ROOT);
+            TokenBucket userBucket = byUsername.computeIfAbsent(key, k -> new TokenBucket(usernameCapacity, usernamePerMinute, now));
+            long userWait = userBucket.tryConsume(now);
+            if (userWait > 0) {
+                throw new TooManyLoginAttemptsException(
+                        "Demasiados intentos de inicio de sesión para este usuario. Intente más tarde.", userWait);
+            }
+        }
+    }
+
+    /**
+     * Descarta los buckets llenos: equivalen a uno nuevo, y así el mapa no crece con cada IP o
+     * usuario que alguna vez intentó entrar.
+     */
+    @Scheduled(fixedDelayString = "${auth.login.bucket-eviction-interval:PT5M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        byIp.values().removeIf(bucket -> bucket.isFull(now));
+        byUsername.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int perMinute, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / 60_000_000_000.0;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        /**
+         * @return 0 si había un intento disponible, o los segundos hasta el próximo
+         */
+        synchronized long tryConsume(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1_000_000_000.0));
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.catamaran.catamaranbackend.auth.security;
+
+/**
+ * Excepción para logins que no se pueden atender porque la verificación de contraseñas está saturada
+ */
+public class LoginUnavailableException extends RuntimeException {
+
+    public LoginUnavailableException(String message) {
+        super(message);
+    }
+
+    public LoginUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,50 @@
+package com.catamaran.catamaranbackend.auth.security;
+
+import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import com.catamaran.catamaranbackend.auth.application.service.UserStatusCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Autorización de los endpoints de propietario a partir del JWT: el id y el rol vienen firmados en
+ * el token, así que no se vuelven a leer de la base; solo el estado activo, que el administrador
+ * puede cambiar mientras el token sigue vigente, se consulta en UserStatusCache.
+ */
+@Component
+@RequiredArgsConstructor
+public class OwnerAuthorization {
+
+    private static final String OWNER_AUTHORITY = "ROLE_PROPIETARIO";
+
+    private final UserStatusCache userStatusCache;
+
+    /**
+     * Valida que el usuario autenticado tenga permisos de propietario
+     * @return Principal del usuario autenticado si tiene permisos de propietario
+     * @throws SecurityException si el usuario no tiene permisos
+     */
+    public UserPrincipal requireOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new SecurityException("Usuario no autenticado");
+        }
+
+        if (!(authentication.getPrincipal() instanceof UserPrincipal userPrincipal)) {
+            throw new SecurityException("Tipo de autenticación inválido");
+        }
+
+        boolean owner = authentication.getAuthorities().stream()
+                .anyMatch(authority -> OWNER_AUTHORITY.equals(authority.getAuthority()));
+        if (!owner) {
+            throw new SecurityException("Acceso denegado. Se requieren permisos de propietario.");
+        }
+
+        if (!userStatusCache.isActive(userPrincipal.id())) {
+            throw new SecurityException("Usuario inactivo. Contacta al administrador.");
+        }
+
+        return userPrincipal;
+    }
+}
@@ -2,7 +2,9 @@ package com.catamaran.catamaranbackend.auth.security;
 
 import com.catamaran.catamaranbackend.auth.application.service.UserDetailsServiceImp;
 import com.catamaran.catamaranbackend.auth.security.filter.JwtTokenValidator;
+import com.catamaran.catamaranbackend.auth.application.service.TokenRevocationService;
 import com.catamaran.catamaranbackend.auth.utils.JwtUtils;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +33,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig  {
 
     private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationService tokenRevocationService;
 
     @Bean
     SecurityFilterChain securityFilterChain (HttpSecurity httpSecurity) throws Exception {
@@ -38,13 +42,16 @@ public class SecurityConfig  {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(new JwtTokenValidator(jwtUtils), BasicAuthenticationFilter.class)
+                .addFilterBefore(new JwtTokenValidator(jwtUtils, verifiedTokenCache, tokenRevocationService), BasicAuthenticationFilter.class)
                 .authorizeHttpRequests(http -> {
                      http.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
+                     // La solicitud original ya fue autorizada; el dispatch ASYNC solo cierra respuestas en streaming
+                     http.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                      http.requestMatchers(HttpMethod.POST, "/api/v1/auth/login").permitAll();
                      http.requestMatchers(HttpMethod.POST, "/api/v1/auth/forgot-password").permitAll();
                      http.requestMatchers(HttpMethod.POST, "/api/v1/auth/reset-password").permitAll();
                      http.requestMatchers(HttpMethod.GET, "/api/v1/auth/validate-reset-token").permitAll();
+                     http.requestMatchers(HttpMethod.POST, "/api/v1/auth/logout").authenticated();
                      http.requestMatchers(
                              "/login.html",
                              "/login.css",
@@ -75,6 +82,7 @@ public class SecurityConfig  {
                      http.requestMatchers("/api/v1/maintenances/**").hasAuthority("ROLE_ADMIN");
                      http.requestMatchers("/api/v1/owner/**").hasAuthority("ROLE_PROPIETARIO");
                      http.requestMatchers("/api/v1/boat/**").hasAuthority("ROLE_ADMIN");
+                     http.requestMatchers("/api/v1/uploads/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_PROPIETARIO");
                      http.anyRequest().authenticated();
                  });
 
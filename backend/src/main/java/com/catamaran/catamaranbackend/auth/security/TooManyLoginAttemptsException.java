@@ -0,0 +1,18 @@
+package com.catamaran.catamaranbackend.auth.security;
+
+/**
+ * Excepción para intentos de login rechazados por exceso de intentos (por IP o por usuario)
+ */
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
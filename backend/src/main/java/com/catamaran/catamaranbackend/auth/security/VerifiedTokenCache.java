@@ -0,0 +1,70 @@
+package com.catamaran.catamaranbackend.auth.security;
+
+import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tokens ya verificados (firma, emisor y vencimiento) con el principal y las authorities que
+ * resultaron. El frontend repite el mismo token en cada request: con el caché, JwtTokenValidator
+ * hace un SHA-256 y una búsqueda en lugar de recalcular el HMAC y parsear los claims.
+ * LRU acotado a jwt.cache.max-entries; una entrada vale hasta el vencimiento de su token.
+ * Se guarda el digest, no el token.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public record VerifiedToken(UserPrincipal principal, Set<GrantedAuthority> authorities, String jti, Instant expiresAt) {}
+
+    private final Map<String, VerifiedToken> entries;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public VerifiedToken get(String token) {
+        String key = digest(token);
+        synchronized (entries) {
+            VerifiedToken verified = entries.get(key);
+            if (verified != null && !verified.expiresAt().isAfter(Instant.now())) {
+                entries.remove(key);
+                return null;
+            }
+            return verified;
+        }
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (verified.expiresAt() == null) {
+            return;
+        }
+        String key = digest(token);
+        synchronized (entries) {
+            entries.put(key, verified);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.catamaran.catamaranbackend.auth.security.filter;
 
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import com.catamaran.catamaranbackend.auth.application.service.TokenRevocationService;
+import com.catamaran.catamaranbackend.auth.security.VerifiedTokenCache;
+import com.catamaran.catamaranbackend.auth.security.VerifiedTokenCache.VerifiedToken;
 import com.catamaran.catamaranbackend.auth.utils.JwtUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,9 +25,13 @@ import java.util.Set;
 public class JwtTokenValidator extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtTokenValidator(JwtUtils jwtUtils) {
+    public JwtTokenValidator(JwtUtils jwtUtils, VerifiedTokenCache verifiedTokenCache, TokenRevocationService tokenRevocationService) {
         this.jwtUtils = jwtUtils;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -41,14 +48,26 @@ public class JwtTokenValidator extends OncePerRequestFilter {
             String token = header.substring(7);
 
             try {
-                DecodedJWT decodedJWT = jwtUtils.verifyToken(token);
-                Long userId = decodedJWT.getClaim("userId").asLong();
-                String username = jwtUtils.extractUsername(decodedJWT);
-                String fullName = jwtUtils.extractSpecificClaim(decodedJWT, "fullName").asString();
-                String roleString = jwtUtils.extractSpecificClaim(decodedJWT, "role").asString();
-                GrantedAuthority role = new SimpleGrantedAuthority(roleString);
-
-                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(new UserPrincipal(userId, username, fullName), null, Set.of(role)));
+                // Mismo token de un request anterior: no hace falta recalcular el HMAC ni parsear los claims
+                VerifiedToken verified = verifiedTokenCache.get(token);
+                if (verified == null) {
+                    DecodedJWT decodedJWT = jwtUtils.verifyToken(token);
+                    Long userId = decodedJWT.getClaim("userId").asLong();
+                    String username = jwtUtils.extractUsername(decodedJWT);
+                    String fullName = jwtUtils.extractSpecificClaim(decodedJWT, "fullName").asString();
+                    String roleString = jwtUtils.extractSpecificClaim(decodedJWT, "role").asString();
+                    GrantedAuthority role = new SimpleGrantedAuthority(roleString);
+
+                    verified = new VerifiedToken(new UserPrincipal(userId, username, fullName), Set.of(role),
+                            decodedJWT.getId(), decodedJWT.getExpiresAtAsInstant());
+                    verifiedTokenCache.put(token, verified);
+                }
+
+                // La revocación se consulta siempre (filtro de Bloom; la base solo ante un positivo)
+                if (!tokenRevocationService.isRevoked(verified.jti())) {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(verified.principal(), null, verified.authorities()));
+                }
             } catch (Exception e) {
                 // Invalid token, continue without authentication
             }
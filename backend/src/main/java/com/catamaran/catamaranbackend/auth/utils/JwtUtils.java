@@ -6,6 +6,7 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,8 +25,20 @@ public class JwtUtils {
     @Value("${jwt.issuer.generator}")
     private String userGenerator;
 
+    // Algorithm y JWTVerifier son inmutables y thread-safe: se arman una sola vez
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+
+    @PostConstruct
+    void init() {
+        algorithm = Algorithm.HMAC256(secretPassword);
+        verifier = JWT.require(algorithm)
+                .withIssuer(userGenerator)
+                .build();
+    }
+
     private Algorithm getAlgorithm() {
-        return Algorithm.HMAC256(secretPassword);
+        return algorithm;
     }
 
     public String createToken(Authentication authentication) {
@@ -76,10 +89,6 @@ public class JwtUtils {
     }
 
     public DecodedJWT verifyToken(String token) {
-        JWTVerifier verifier = JWT.require(getAlgorithm())
-                .withIssuer(userGenerator)
-                .build();
-
         return verifier.verify(token);
     }
 
@@ -4,12 +4,15 @@ import com.catamaran.catamaranbackend.auth.application.dto.AuthRequest;
 import com.catamaran.catamaranbackend.auth.application.dto.AuthResponse;
 import com.catamaran.catamaranbackend.auth.application.dto.ForgotPasswordRequest;
 import com.catamaran.catamaranbackend.auth.application.dto.PasswordResetResponse;
+import com.catamaran.catamaranbackend.auth.application.dto.RefreshTokenRequest;
 import com.catamaran.catamaranbackend.auth.application.dto.ResetPasswordRequest;
 import com.catamaran.catamaranbackend.auth.application.port.LoginUseCase;
 import com.catamaran.catamaranbackend.auth.application.service.PasswordRecoveryService;
 import com.catamaran.catamaranbackend.auth.application.service.UserDetailsServiceImp;
+import com.catamaran.catamaranbackend.auth.application.service.UserStatusCache;
 import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
 import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.auth.security.LoginRateLimiter;
 import com.catamaran.catamaranbackend.domain.Role;
 import com.catamaran.catamaranbackend.repository.BoatRepository;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,22 +20,21 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.dao.DataIntegrityViolationException;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import java.util.HashMap;
 
 @RestController
@@ -47,6 +49,8 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final UserDetailsServiceImp userDetailsService;
     private final PasswordRecoveryService passwordRecoveryService;
+    private final UserStatusCache userStatusCache;
+    private final LoginRateLimiter loginRateLimiter;
 
     @Operation(
             summary = "Sign in",
@@ -58,25 +62,38 @@ public class AuthController {
             content = @Content(schema = @Schema(implementation = AuthResponse.class))
     )
     @ApiResponse(responseCode = "401", description = "Invalid credentials")
+    @ApiResponse(responseCode = "429", description = "Too many attempts from this address or for this user")
+    @ApiResponse(responseCode = "503", description = "Password verification is saturated")
     @PostMapping("/login")
-    AuthResponse authenticate(@RequestBody @Valid AuthRequest authRequest) {
+    AuthResponse authenticate(@RequestBody @Valid AuthRequest authRequest, HttpServletRequest request) {
+        // Antes de leer el usuario o correr BCrypt: un intento rechazado no cuesta nada
+        loginRateLimiter.acquire(request.getRemoteAddr(), authRequest.username());
         return loginUseCase.login(authRequest);
     }
 
+    @Operation(
+            summary = "Sign out",
+            description = "Revokes the access token (and the refresh token, if sent) until they expire"
+    )
+    @ApiResponse(responseCode = "204", description = "Tokens revoked")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+            @RequestBody(required = false) RefreshTokenRequest request
+    ) {
+        // El filtro JWT ya validó el header: llega como "Bearer <token>"
+        userDetailsService.logout(authorization.substring(7), request != null ? request.refreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping
     public Page<UserEntity> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size
     ) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-        Page<UserEntity> allUsers = userRepository.findAll(pageable);
-        List<UserEntity> propietarios = allUsers.getContent().stream()
-                .filter(user -> user.getRole() == Role.PROPIETARIO)
-                .collect(Collectors.toList());
-        long total = userRepository.findAll().stream()
-                .filter(user -> user.getRole() == Role.PROPIETARIO)
-                .count();
-        return new PageImpl<>(propietarios, pageable, total);
+        // Solo propietarios: el filtro por rol, la página y el total los resuelve la base
+        return userRepository.findAllByRole(Role.PROPIETARIO, pageable);
     }
 
 
@@ -112,7 +129,9 @@ public class AuthController {
                             existing.setStatus(updatedUser.getStatus());
                         }
 
-                        return ResponseEntity.ok(userRepository.save(existing));
+                        UserEntity saved = userRepository.save(existing);
+                        userStatusCache.statusChanged(saved.getId(), Boolean.TRUE.equals(saved.getStatus()));
+                        return ResponseEntity.ok(saved);
                     } catch (DataIntegrityViolationException e) {
                         String errorMessage = "El email o username ya existe";
                         if (e.getMessage().contains("users_email_key")) {
@@ -131,6 +150,7 @@ public class AuthController {
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         if (userRepository.existsById(id)) {
             userRepository.deleteById(id);
+            userStatusCache.userDeleted(id);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
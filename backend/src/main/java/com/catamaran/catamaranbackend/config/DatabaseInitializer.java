@@ -0,0 +1,109 @@
+package com.catamaran.catamaranbackend.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessException;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Ajustes de esquema específicos de PostgreSQL que ddl-auto=update no cubre.
+ * Corre antes que {@link DataInitializer} y no hace nada en otras bases (H2 en tests).
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseInitializer {
+
+    // Secuencias pooled (allocationSize = 50) de las tablas que antes usaban IDENTITY
+    private static final Map<String, String> ID_SEQUENCES = Map.of(
+            "payments", "payments_seq",
+            "maintenances", "maintenances_seq",
+            "boat_documents", "boat_documents_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public CommandLineRunner initSchema() {
+        return args -> {
+            if (!isPostgres()) {
+                return;
+            }
+            alignIdSequences();
+            syncBoatAvailability();
+            backfillPaymentVersions();
+            createBoatSearchIndexes();
+        };
+    }
+
+    /**
+     * Las filas creadas con IDENTITY ya ocupan ids; la secuencia nueva empieza en 1.
+     * Se adelanta cada secuencia hasta el id máximo para que el siguiente bloque no choque.
+     */
+    private void alignIdSequences() {
+        ID_SEQUENCES.forEach((table, sequence) -> {
+            Long aligned = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequence + "', GREATEST(" +
+                            "(SELECT COALESCE(MAX(id), 1) FROM " + table + "), " +
+                            "(SELECT last_value FROM " + sequence + ")))",
+                    Long.class);
+            log.info("Secuencia {} alineada en {}", sequence, aligned);
+        });
+    }
+
+    /**
+     * Rellena y repara la columna available (owner_id IS NULL) de filas previas a la columna
+     * o modificadas fuera de JPA; en uso normal la mantiene BoatEntity.syncAvailability().
+     */
+    private void syncBoatAvailability() {
+        int updated = jdbcTemplate.update(
+                "UPDATE boats SET available = (owner_id IS NULL) " +
+                        "WHERE available IS DISTINCT FROM (owner_id IS NULL)");
+        if (updated > 0) {
+            log.info("Disponibilidad recalculada para {} botes", updated);
+        }
+    }
+
+    /**
+     * Pagos previos a la columna version (bloqueo optimista de PaymentEntity) quedan en NULL;
+     * se inicializan en 0 para que Hibernate pueda compararla al actualizarlos.
+     */
+    private void backfillPaymentVersions() {
+        int updated = jdbcTemplate.update("UPDATE payments SET version = 0 WHERE version IS NULL");
+        if (updated > 0) {
+            log.info("Versión inicializada para {} pagos", updated);
+        }
+    }
+
+    /**
+     * Índices GIN pg_trgm para las búsquedas LOWER(col) LIKE '%term%' del listado de botes
+     * y un índice parcial para el filtro "Disponible".
+     */
+    private void createBoatSearchIndexes() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_boats_name_trgm ON boats USING gin (lower(name) gin_trgm_ops)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_boats_model_trgm ON boats USING gin (lower(model) gin_trgm_ops)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_boats_location_trgm ON boats USING gin (lower(location) gin_trgm_ops)");
+        } catch (DataAccessException e) {
+            // Sin permisos para la extensión la búsqueda sigue funcionando, solo sin índice
+            log.warn("No se pudieron crear los índices pg_trgm de botes: {}", e.getMessage());
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_boats_available ON boats (id) WHERE available");
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -1,11 +1,11 @@
 package com.catamaran.catamaranbackend.controller;
 
-import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.application.service.PasswordVerificationService;
 import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
 import com.catamaran.catamaranbackend.domain.*;
-import com.catamaran.catamaranbackend.repository.BoatRepository;
-import com.catamaran.catamaranbackend.repository.MaintananceRepository;
-import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.dto.OwnerListRow;
+import com.catamaran.catamaranbackend.service.AdminRollupService;
+import com.catamaran.catamaranbackend.service.ExportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -16,8 +16,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
@@ -29,106 +30,64 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AdminController {
 
-    private final BoatRepository boatRepository;
     private final UserRepositoryJpa userRepository;
-    private final MaintananceRepository maintananceRepository;
-    private final PaymentRepository paymentRepository;
+    private final AdminRollupService adminRollupService;
+    private final PasswordVerificationService passwordVerificationService;
+    private final ExportService exportService;
 
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        // Total boats
-        stats.put("totalBoats", boatRepository.count());
+        // Total boats (sum of the per-type counters)
+        long totalBoats = adminRollupService.counts(AdminRollupEntity.BOATS_BY_TYPE).values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        stats.put("totalBoats", totalBoats);
 
         // Active owners (only users with PROPIETARIO role)
-        List<UserEntity> users = userRepository.findAll();
-        long activeOwners = users.stream()
-                .filter(user -> user.getRole() == Role.PROPIETARIO)
-                .count();
-        stats.put("activeOwners", activeOwners);
+        stats.put("activeOwners", adminRollupService.count(AdminRollupEntity.OWNERS, AdminRollupEntity.OWNERS_TOTAL));
 
         // Pending maintenances (PROGRAMADO or EN_PROCESO)
-        List<MaintananceEntity> maintenances = maintananceRepository.findAll();
-        long pendingMaintenances = maintenances.stream()
-                .filter(m -> m.getStatus() == MaintananceStatus.PROGRAMADO ||
-                           m.getStatus() == MaintananceStatus.EN_PROCESO)
-                .count();
+        Map<String, Long> maintenancesByStatus = adminRollupService.counts(AdminRollupEntity.MAINTENANCES_BY_STATUS);
+        long pendingMaintenances = maintenancesByStatus.getOrDefault(MaintananceStatus.PROGRAMADO.name(), 0L)
+                + maintenancesByStatus.getOrDefault(MaintananceStatus.EN_PROCESO.name(), 0L);
         stats.put("pendingMaintenances", pendingMaintenances);
 
         // Monthly payments (current month, status PAGADO)
-        YearMonth currentMonth = YearMonth.now();
-        LocalDateTime startOfMonth = currentMonth.atDay(1).atStartOfDay();
-        LocalDateTime endOfMonth = currentMonth.atEndOfMonth().atTime(23, 59, 59);
-
-        List<PaymentEntity> payments = paymentRepository.findAll();
-        double monthlyPayments = payments.stream()
-                .filter(p -> p.getStatus() == PaymentStatus.PAGADO &&
-                           p.getDate().isAfter(startOfMonth) &&
-                           p.getDate().isBefore(endOfMonth))
-                .mapToDouble(p -> p.getMount() != null ? p.getMount() : 0.0)
-                .sum();
-        stats.put("monthlyPayments", monthlyPayments);
+        stats.put("monthlyPayments",
+                adminRollupService.amount(AdminRollupEntity.PAID_PAYMENTS_BY_MONTH, YearMonth.now().toString()));
 
         return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/charts/boats-by-type")
     public ResponseEntity<Map<String, Long>> getBoatsByType() {
-        List<BoatEntity> boats = boatRepository.findAll();
-
-        Map<String, Long> boatsByType = boats.stream()
-                .collect(Collectors.groupingBy(
-                        boat -> boat.getType() != null ? boat.getType().name() : "UNKNOWN",
-                        Collectors.counting()
-                ));
-
-        return ResponseEntity.ok(boatsByType);
+        return ResponseEntity.ok(adminRollupService.counts(AdminRollupEntity.BOATS_BY_TYPE));
     }
 
     @GetMapping("/charts/maintenances-by-status")
     public ResponseEntity<Map<String, Long>> getMaintenancesByStatus() {
-        List<MaintananceEntity> maintenances = maintananceRepository.findAll();
-
-        Map<String, Long> maintenancesByStatus = maintenances.stream()
-                .collect(Collectors.groupingBy(
-                        maintenance -> maintenance.getStatus() != null ? maintenance.getStatus().name() : "UNKNOWN",
-                        Collectors.counting()
-                ));
+        return ResponseEntity.ok(adminRollupService.counts(AdminRollupEntity.MAINTENANCES_BY_STATUS));
+    }
 
-        return ResponseEntity.ok(maintenancesByStatus);
+    // Pool de verificación de contraseñas del login: espera en cola, rechazos y vencidos
+    @GetMapping("/login-metrics")
+    public ResponseEntity<Map<String, Object>> getLoginMetrics() {
+        return ResponseEntity.ok(passwordVerificationService.metrics());
     }
 
     @GetMapping("/owners/stats")
     public ResponseEntity<Map<String, Object>> getOwnersStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        // Get all owners (only users with PROPIETARIO role)
-        List<UserEntity> allOwners = userRepository.findAll().stream()
-                .filter(user -> user.getRole() == Role.PROPIETARIO)
-                .collect(Collectors.toList());
-
-        // Total owners
-        stats.put("totalOwners", allOwners.size());
-
-        // Active owners
-        long activeOwners = allOwners.stream()
-                .filter(user -> user.getStatus() != null && user.getStatus())
-                .count();
+        // Owners = users with PROPIETARIO role
+        long totalOwners = adminRollupService.count(AdminRollupEntity.OWNERS, AdminRollupEntity.OWNERS_TOTAL);
+        long activeOwners = adminRollupService.count(AdminRollupEntity.OWNERS, AdminRollupEntity.OWNERS_ACTIVE);
+        stats.put("totalOwners", totalOwners);
         stats.put("activeOwners", activeOwners);
-
-        // Inactive owners
-        long inactiveOwners = allOwners.size() - activeOwners;
-        stats.put("inactiveOwners", inactiveOwners);
-
-        // Owners with boats
-        long ownersWithBoats = allOwners.stream()
-                .filter(owner -> {
-                    List<BoatEntity> boats = boatRepository.findByOwner(owner);
-                    return boats != null && !boats.isEmpty();
-                })
-                .count();
-        stats.put("ownersWithBoats", ownersWithBoats);
+        stats.put("inactiveOwners", totalOwners - activeOwners);
+        stats.put("ownersWithBoats", adminRollupService.count(AdminRollupEntity.OWNERS, AdminRollupEntity.OWNERS_WITH_BOATS));
 
         return ResponseEntity.ok(stats);
     }
@@ -145,65 +104,74 @@ public class AdminController {
         System.out.println("  search: " + search);
         System.out.println("  status: " + status);
 
-        // Get all owners first
-        List<UserEntity> allOwners = userRepository.findAll().stream()
-                .filter(user -> user.getRole() == Role.PROPIETARIO)
-                .collect(Collectors.toList());
-
-        // Apply search filter if provided
+        String searchPattern = null;
         if (search != null && !search.trim().isEmpty()) {
             System.out.println("Applying search filter: " + search.trim());
-            String searchTerm = search.trim().toLowerCase();
-            allOwners = allOwners.stream()
-                    .filter(user ->
-                        (user.getFullName() != null && user.getFullName().toLowerCase().contains(searchTerm)) ||
-                        (user.getEmail() != null && user.getEmail().toLowerCase().contains(searchTerm)) ||
-                        (user.getUsername() != null && user.getUsername().toLowerCase().contains(searchTerm))
-                    )
-                    .collect(Collectors.toList());
+            searchPattern = "%" + search.trim().toLowerCase() + "%";
         }
 
-        // Apply status filter if provided
+        Boolean statusFilter = null;
         if (status != null && !status.equals("all")) {
             System.out.println("Applying status filter: " + status);
-            boolean isActive = Boolean.parseBoolean(status);
-            allOwners = allOwners.stream()
-                    .filter(user -> user.getStatus() != null && user.getStatus() == isActive)
-                    .collect(Collectors.toList());
+            statusFilter = Boolean.parseBoolean(status);
         }
 
-        // Sort owners by ID in descending order (highest to lowest)
-        allOwners.sort((a, b) -> Long.compare(b.getId(), a.getId()));
-
-        // Create pageable for pagination
+        // Filter, sort (id desc), page and count boats in SQL: one query per page
         Pageable pageable = PageRequest.of(page, size);
+        List<OwnerListRow> rows = userRepository.findOwnerRows(Role.PROPIETARIO, searchPattern, statusFilter, pageable);
+
+        long total;
+        if (!rows.isEmpty()) {
+            total = rows.get(0).total();
+        } else if (page == 0) {
+            total = 0;
+        } else {
+            // Page past the end: no rows to read the window total from
+            total = userRepository.countOwnerRows(Role.PROPIETARIO, searchPattern, statusFilter);
+        }
 
-        // Convert to Page
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), allOwners.size());
-
-        List<Map<String, Object>> pageContent = allOwners.subList(start, end).stream()
-                .map(user -> {
+        List<Map<String, Object>> pageContent = rows.stream()
+                .map(row -> {
                     Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("id", user.getId());
-                    userMap.put("email", user.getEmail());
-                    userMap.put("username", user.getUsername());
-                    userMap.put("fullName", user.getFullName());
-                    userMap.put("phoneNumber", user.getPhoneNumber());
-                    userMap.put("role", user.getRole());
-                    userMap.put("status", user.getStatus());
-                    userMap.put("uniqueId", user.getUniqueId());
-                    // Count boats for this user
-                    long boatCount = boatRepository.findByOwner(user).size();
-                    userMap.put("boatsCount", boatCount);
+                    userMap.put("id", row.id());
+                    userMap.put("email", row.email());
+                    userMap.put("username", row.username());
+                    userMap.put("fullName", row.fullName());
+                    userMap.put("phoneNumber", row.phoneNumber());
+                    userMap.put("role", row.role());
+                    userMap.put("status", row.status());
+                    userMap.put("uniqueId", row.uniqueId());
+                    userMap.put("boatsCount", row.boatsCount());
                     return userMap;
                 })
                 .collect(Collectors.toList());
 
         Page<Map<String, Object>> result = new org.springframework.data.domain.PageImpl<>(
-                pageContent, pageable, allOwners.size());
+                pageContent, pageable, total);
 
         System.out.println("Returning " + result.getTotalElements() + " owners");
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+
+    // Exportación completa de propietarios en CSV o NDJSON (?format=csv|ndjson), mismos filtros que /owners
+    @GetMapping("/owners/export")
+    public ResponseEntity<StreamingResponseBody> exportOwners(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String status) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            return StreamingResponses.badRequest("Formato inválido: " + format);
+        }
+        String searchPattern = search != null && !search.trim().isEmpty() ? "%" + search.trim().toLowerCase() + "%" : null;
+        Boolean statusFilter = status != null && !status.equals("all") ? Boolean.parseBoolean(status) : null;
+
+        StreamingResponseBody body = out -> exportService.exportOwners(searchPattern, statusFilter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=propietarios." + exportFormat.getExtension())
+                .body(body);
+    }
+}
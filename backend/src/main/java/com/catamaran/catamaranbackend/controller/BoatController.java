@@ -5,21 +5,30 @@ import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserReposit
 import com.catamaran.catamaranbackend.domain.*;
 import com.catamaran.catamaranbackend.repository.BoatDocumentRepository;
 import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.BoatSpecifications;
 import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.repository.ReportSpecifications;
+import com.catamaran.catamaranbackend.service.BoatDocumentService;
+import com.catamaran.catamaranbackend.service.ExportService;
+import com.catamaran.catamaranbackend.service.FileDownloadService;
+import com.catamaran.catamaranbackend.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,10 +37,10 @@ import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -43,13 +52,17 @@ public class BoatController {
     private final UserRepositoryJpa userRepository;
     private final BoatDocumentRepository boatDocumentRepository;
     private final PaymentRepository paymentRepository;
+    private final ExportService exportService;
+    private final FileDownloadService fileDownloadService;
+    private final FileStorageService fileStorageService;
+    private final BoatDocumentService boatDocumentService;
 
     @Value("${app.upload.dir:src/main/resources/static/documents/}")
     private String uploadDir;
 
     @GetMapping("/{id}")
     public ResponseEntity<BoatEntity> getById(@PathVariable Long id) {
-        return boatRepository.findById(id)
+        return boatRepository.findSummaryById(id)
                 .map(boat -> ResponseEntity.ok(boat))
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -75,8 +88,12 @@ public class BoatController {
                 }
             }
 
-            // Use the proper filtering method from the repository
-              Page<BoatEntity> boats = boatRepository.findWithFilters(search, boatType, status, pageable);
+            // Only the filters that were actually requested end up in the SQL
+            Specification<BoatEntity> spec = Specification.allOf(
+                    BoatSpecifications.hasSearchTerm(search),
+                    BoatSpecifications.hasType(boatType),
+                    BoatSpecifications.hasAvailability(status));
+            Page<BoatEntity> boats = boatRepository.findAll(spec, pageable);
 
             return ResponseEntity.ok(boats);
         } catch (Exception e) {
@@ -87,6 +104,28 @@ public class BoatController {
         }
     }
 
+    // Exportación completa en CSV o NDJSON (?format=csv|ndjson) con los mismos filtros del listado:
+    // una sola consulta leída con cursor y escrita a la respuesta a medida que llega (ver ExportService)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBoats(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam Map<String, String> filters) {
+        ExportFormat exportFormat;
+        Specification<BoatEntity> spec;
+        try {
+            exportFormat = ExportFormat.from(format);
+            spec = ReportSpecifications.forBoats(ReportSpecifications.normalize(ReportType.BOATS, filters));
+        } catch (IllegalArgumentException e) {
+            return StreamingResponses.badRequest("Filtro o formato inválido: " + e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> exportService.exportBoats(spec, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=embarcaciones." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @PostMapping
     public ResponseEntity<BoatEntity> createBoat(@RequestBody BoatEntity boat) {
         BoatEntity savedBoat = boatRepository.save(boat);
@@ -116,7 +155,7 @@ public class BoatController {
 
     @GetMapping("/{boatId}/documents")
     public ResponseEntity<List<BoatDocumentEntity>> getBoatDocuments(@PathVariable Long boatId) {
-        Optional<BoatEntity> boatOpt = boatRepository.findById(boatId);
+        Optional<BoatEntity> boatOpt = boatRepository.findWithDocumentsById(boatId);
         if (boatOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -131,7 +170,7 @@ public class BoatController {
             @RequestParam("file") MultipartFile file,
             @RequestParam("name") String documentName) {
 
-        Optional<BoatEntity> boatOpt = boatRepository.findById(boatId);
+        Optional<BoatEntity> boatOpt = boatRepository.findSummaryById(boatId);
         if (boatOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -141,42 +180,19 @@ public class BoatController {
         }
 
         try {
-            // Generar nombre único para el archivo
-            String fileName = "boat_" + boatId + "_doc_" + System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            String filePath = uploadDir + fileName;
-
-            // Crear directorio si no existe
-            Path directoryPath = Paths.get(uploadDir);
-            Files.createDirectories(directoryPath);
-
-            // Guardar archivo en el directorio
-            Path path = Paths.get(filePath);
-            Files.copy(file.getInputStream(), path, StandardCopyOption.REPLACE_EXISTING);
+            StoredFileEntity stored;
+            try (InputStream content = file.getInputStream()) {
+                stored = fileStorageService.store(content, file.getOriginalFilename(), file.getContentType());
+            }
 
             // Verificar que el archivo se guardó correctamente
-            if (Files.size(path) == 0) {
-                Files.deleteIfExists(path);
+            if (stored.getSize() == 0) {
+                fileStorageService.release(stored.getHash());
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
             }
 
-            // Crear el documento con URL para descarga
-            String webUrl = "/api/v1/boat/documents/" + fileName;
-            BoatDocumentEntity document = BoatDocumentEntity.builder()
-                    .name(documentName)
-                    .url(webUrl)
-                    .boat(boatOpt.get())
-                    .build();
-
-            BoatDocumentEntity savedDocument = boatDocumentRepository.save(document);
-
-            // Agregar el documento al bote
-            BoatEntity boat = boatOpt.get();
-            if (boat.getDocuments() == null) {
-                boat.setDocuments(new ArrayList<>());
-            }
-            boat.getDocuments().add(savedDocument);
-            boatRepository.save(boat);
-
+            BoatDocumentEntity savedDocument = boatDocumentService.addDocument(
+                    boatOpt.get(), documentName, file.getOriginalFilename(), stored);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedDocument);
 
         } catch (IOException e) {
@@ -190,8 +206,7 @@ public class BoatController {
             @PathVariable Long documentId,
             @RequestParam("name") String documentName) {
 
-        Optional<BoatEntity> boatOpt = boatRepository.findById(boatId);
-        if (boatOpt.isEmpty()) {
+        if (!boatRepository.existsById(boatId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -201,15 +216,11 @@ public class BoatController {
         }
 
         // Verificar que el documento pertenece al bote
-        BoatEntity boat = boatOpt.get();
-        boolean documentBelongsToBoat = boat.getDocuments() != null &&
-                boat.getDocuments().stream().anyMatch(doc -> doc.getId().equals(documentId));
-
-        if (!documentBelongsToBoat) {
+        BoatDocumentEntity document = documentOpt.get();
+        if (!belongsToBoat(document, boatId)) {
             return ResponseEntity.badRequest().build();
         }
 
-        BoatDocumentEntity document = documentOpt.get();
         document.setName(documentName);
         BoatDocumentEntity updatedDocument = boatDocumentRepository.save(document);
 
@@ -221,8 +232,7 @@ public class BoatController {
             @PathVariable Long boatId,
             @PathVariable Long documentId) {
 
-        Optional<BoatEntity> boatOpt = boatRepository.findById(boatId);
-        if (boatOpt.isEmpty()) {
+        if (!boatRepository.existsById(boatId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -231,28 +241,20 @@ public class BoatController {
             return ResponseEntity.notFound().build();
         }
 
-        BoatEntity boat = boatOpt.get();
         BoatDocumentEntity document = documentOpt.get();
 
         // Verificar que el documento pertenece al bote
-        boolean documentBelongsToBoat = boat.getDocuments() != null &&
-                boat.getDocuments().stream().anyMatch(doc -> doc.getId().equals(documentId));
-
-        if (!documentBelongsToBoat) {
+        if (!belongsToBoat(document, boatId)) {
             return ResponseEntity.badRequest().build();
         }
 
         try {
-            // Convertir URL a ruta del sistema de archivos
-            String webUrl = document.getUrl();
-            String fileName = webUrl.replace("/api/v1/boat/documents/", "");
-            String filePath = uploadDir + fileName;
-
-            Path path = Paths.get(filePath);
-            Files.deleteIfExists(path);
-
-            boat.getDocuments().removeIf(doc -> doc.getId().equals(documentId));
-            boatRepository.save(boat);
+            // Documentos anteriores al almacén por contenido: se borra su archivo.
+            // Los demás liberan su referencia al borrarse la fila (StoredFileReferenceListener)
+            if (document.getFileHash() == null) {
+                String fileName = document.getUrl().substring(document.getUrl().lastIndexOf('/') + 1);
+                Files.deleteIfExists(Paths.get(uploadDir).resolve(fileName));
+            }
 
             boatDocumentRepository.deleteById(documentId);
 
@@ -264,32 +266,28 @@ public class BoatController {
     }
 
     @GetMapping("/documents/{filename:.+}")
-    public ResponseEntity<Resource> getDocument(@PathVariable String filename) {
-        try {
-            Path filePath = Paths.get(uploadDir).resolve(filename).normalize();
-
-            if (Files.exists(filePath) && Files.isReadable(filePath)) {
-                // Determine content type
-                String contentType = "application/octet-stream";
-                try {
-                    contentType = Files.probeContentType(filePath);
-                } catch (IOException e) {
-                    // Use default content type
-                }
-
-                Resource resource = new InputStreamResource(Files.newInputStream(filePath));
+    public void getDocument(@PathVariable String filename,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        Path directory = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path filePath = directory.resolve(filename).normalize();
+        if (!filePath.startsWith(directory)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
 
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .contentLength(Files.size(filePath))
-                        .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        Optional<BoatDocumentEntity> document = boatDocumentRepository
+                .findFirstByUrlIn(List.of("/api/v1/boat/documents/" + filename, "/documents/" + filename));
+        Optional<StoredFileEntity> stored = document.map(BoatDocumentEntity::getFileHash).flatMap(fileStorageService::find);
+        if (stored.isPresent()) {
+            fileDownloadService.serve(stored.get(), fileStorageService.pathOf(stored.get()), filename, request, response);
+            return;
         }
+
+        // Documentos anteriores al almacén por contenido: archivo por nombre en uploadDir.
+        // Tipo guardado al subir; los más antiguos no lo tienen y se deduce de la extensión
+        String contentType = document.map(BoatDocumentEntity::getContentType).orElse(null);
+        fileDownloadService.serve(filePath, contentType, filename, request, response);
     }
 
     @PutMapping("/{boatId}/owner/{ownerId}")
@@ -313,7 +311,7 @@ public class BoatController {
             }
 
             // Find boat
-            Optional<BoatEntity> boatOpt = boatRepository.findById(boatId);
+            Optional<BoatEntity> boatOpt = boatRepository.findSummaryById(boatId);
             if (boatOpt.isEmpty()) {
                 System.err.println("Boat not found: " + boatId);
                 return ResponseEntity.notFound().build();
@@ -425,7 +423,7 @@ public class BoatController {
 
         try {
             // Find boat
-            Optional<BoatEntity> boatOpt = boatRepository.findById(boatId);
+            Optional<BoatEntity> boatOpt = boatRepository.findSummaryById(boatId);
             if (boatOpt.isEmpty()) {
                 System.err.println("Boat not found: " + boatId);
                 return ResponseEntity.notFound().build();
@@ -474,4 +472,9 @@ public class BoatController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    // El id del bote se lee del proxy sin inicializarlo
+    private boolean belongsToBoat(BoatDocumentEntity document, Long boatId) {
+        return document.getBoat() != null && boatId.equals(document.getBoat().getId());
+    }
 }
@@ -1,10 +1,15 @@
 package com.catamaran.catamaranbackend.controller;
 
 import com.catamaran.catamaranbackend.domain.*;
+import com.catamaran.catamaranbackend.dto.MaintenanceStatistics;
 import com.catamaran.catamaranbackend.repository.BoatRepository;
 import com.catamaran.catamaranbackend.repository.MaintananceRepository;
 import com.catamaran.catamaranbackend.repository.MaintananceSpecifications;
 import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.service.KeysetPaginationService;
+import com.catamaran.catamaranbackend.service.KeysetPaginationService.KeysetOrder;
+import com.catamaran.catamaranbackend.repository.ReportSpecifications;
+import com.catamaran.catamaranbackend.service.ExportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,6 +19,8 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,6 +36,12 @@ public class MaintananceController {
     private final MaintananceRepository maintananceRepository;
     private final BoatRepository boatRepository;
     private final PaymentRepository paymentRepository;
+    private final KeysetPaginationService keysetPaginationService;
+    private final ExportService exportService;
+
+    static final KeysetOrder<MaintananceEntity> MAINTENANCES_BY_SCHEDULE = new KeysetOrder<>(
+            "maintenances", "dateScheduled", MaintananceEntity::getDateScheduled, MaintananceEntity::getId,
+            Sort.Direction.DESC);
 
     @GetMapping("/{id}")
     public ResponseEntity<MaintananceEntity> getById(@PathVariable Long id) {
@@ -38,37 +51,29 @@ public class MaintananceController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<MaintananceEntity>> getAll(
+    public ResponseEntity<?> getAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) MaintananceStatus status,
-            @RequestParam(required = false) MaintananceType type) {
-
-        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
-
-        // Build specification for filtering
-        Specification<MaintananceEntity> spec = null;
-
-        if (search != null && !search.trim().isEmpty()) {
-            spec = MaintananceSpecifications.hasSearchTerm(search);
-        }
-
-        if (status != null) {
-            if (spec == null) {
-                spec = MaintananceSpecifications.hasStatus(status);
-            } else {
-                spec = spec.and(MaintananceSpecifications.hasStatus(status));
+            @RequestParam(required = false) MaintananceType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String count) {
+
+        // Build specification for filtering (shared with the reports)
+        Specification<MaintananceEntity> spec = MaintananceSpecifications.fromFilters(search, status, type);
+
+        // Keyset mode: ?cursor= (empty for the first page), ordered by (dateScheduled, id) without OFFSET
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(keysetPaginationService.page(
+                        maintananceRepository, spec, MAINTENANCES_BY_SCHEDULE, cursor, size, count));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             }
         }
 
-        if (type != null) {
-            if (spec == null) {
-                spec = MaintananceSpecifications.hasType(type);
-            } else {
-                spec = spec.and(MaintananceSpecifications.hasType(type));
-            }
-        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
 
         Page<MaintananceEntity> maintenances;
         if (spec == null) {
@@ -81,6 +86,28 @@ public class MaintananceController {
         return ResponseEntity.ok(maintenances);
     }
 
+    // Exportación completa en CSV o NDJSON (?format=csv|ndjson) con los mismos filtros del listado:
+    // una sola consulta leída con cursor y escrita a la respuesta a medida que llega (ver ExportService)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMaintenances(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam Map<String, String> filters) {
+        ExportFormat exportFormat;
+        Specification<MaintananceEntity> spec;
+        try {
+            exportFormat = ExportFormat.from(format);
+            spec = ReportSpecifications.forMaintenances(ReportSpecifications.normalize(ReportType.MAINTENANCE, filters));
+        } catch (IllegalArgumentException e) {
+            return StreamingResponses.badRequest("Filtro o formato inválido: " + e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> exportService.exportMaintenances(spec, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=mantenimientos." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @GetMapping("/boat/{boatId}")
     public ResponseEntity<Page<MaintananceEntity>> getByBoatId(
             @PathVariable Long boatId,
@@ -164,16 +191,13 @@ public class MaintananceController {
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getMaintenanceStatistics() {
         try {
-            long totalMaintenances = maintananceRepository.count();
-            long pendingMaintenances = maintananceRepository.countByStatus(MaintananceStatus.PROGRAMADO);
-            long completedMaintenances = maintananceRepository.countByStatus(MaintananceStatus.COMPLETADO);
-            Double totalCost = maintananceRepository.sumTotalCost();
+            MaintenanceStatistics stats = maintananceRepository.statistics();
 
             Map<String, Object> statistics = new HashMap<>();
-            statistics.put("totalMaintenances", totalMaintenances);
-            statistics.put("pendingMaintenances", pendingMaintenances);
-            statistics.put("completedMaintenances", completedMaintenances);
-            statistics.put("totalCost", totalCost != null ? totalCost : 0.0);
+            statistics.put("totalMaintenances", stats.totalMaintenances());
+            statistics.put("pendingMaintenances", stats.pendingMaintenances());
+            statistics.put("completedMaintenances", stats.completedMaintenances());
+            statistics.put("totalCost", stats.totalCost());
 
             return ResponseEntity.ok(statistics);
         } catch (Exception e) {
@@ -1,10 +1,22 @@
 package com.catamaran.catamaranbackend.controller;
 
 import com.catamaran.catamaranbackend.domain.*;
+import com.catamaran.catamaranbackend.dto.PaymentStatistics;
+import com.catamaran.catamaranbackend.dto.PaymentSummary;
 import com.catamaran.catamaranbackend.repository.BoatRepository;
 import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.service.KeysetPaginationService;
+import com.catamaran.catamaranbackend.service.PaymentReceiptService;
+import com.catamaran.catamaranbackend.service.KeysetPaginationService.KeysetOrder;
+import com.catamaran.catamaranbackend.repository.ReportSpecifications;
+import com.catamaran.catamaranbackend.service.ExportService;
+import com.catamaran.catamaranbackend.service.FileDownloadService;
+import com.catamaran.catamaranbackend.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,17 +25,15 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
@@ -38,6 +48,14 @@ public class PaymentController {
 
     private final PaymentRepository paymentRepository;
     private final BoatRepository boatRepository;
+    private final KeysetPaginationService keysetPaginationService;
+    private final PaymentReceiptService paymentReceiptService;
+    private final ExportService exportService;
+    private final FileDownloadService fileDownloadService;
+    private final FileStorageService fileStorageService;
+
+    private static final KeysetOrder<PaymentEntity> PAYMENTS_BY_DATE = new KeysetOrder<>(
+            "payments", "date", PaymentEntity::getDate, PaymentEntity::getId, Sort.Direction.ASC);
 
     @Value("${file.upload-dir:uploads/receipts}")
     private String uploadDir;
@@ -50,13 +68,16 @@ public class PaymentController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<PaymentEntity>> getAll(
+    public ResponseEntity<?> getAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String reason,
             @RequestParam(required = false) String month,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String count,
+            @RequestParam(required = false) String view) {
 
         System.out.println("PaymentController.getAll called with filters:");
         System.out.println("  page: " + page + ", size: " + size);
@@ -65,75 +86,35 @@ public class PaymentController {
         System.out.println("  month: " + month);
         System.out.println("  status: " + status);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("date").ascending());
-
-        // Build dynamic query with multiple filters using Specifications
-        org.springframework.data.jpa.domain.Specification<PaymentEntity> spec = Specification.where(null);
-
-        // Apply search filter if provided
-        if (search != null && !search.trim().isEmpty()) {
-            System.out.println("Applying search filter: " + search.trim());
-            spec = spec.and(PaymentSpecification.hasSearchTerm(search.trim()));
+        // Build dynamic query with multiple filters using Specifications (shared with the reports)
+        Specification<PaymentEntity> filters;
+        try {
+            filters = PaymentSpecification.fromFilters(search, reason, month, status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Filtro inválido: " + e.getMessage()));
         }
-
-        // Apply reason filter if provided
-        if (reason != null && !reason.equals("all")) {
-            System.out.println("Applying reason filter: " + reason);
-            ReasonPayment reasonEnum = ReasonPayment.valueOf(reason.toUpperCase());
-            spec = spec.and(PaymentSpecification.hasReason(reasonEnum));
+        boolean filtered = filters != null;
+        Specification<PaymentEntity> spec = Specification.allOf(filters);
+
+        // Keyset mode: ?cursor= (empty for the first page), ordered by (date, id) without OFFSET
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(keysetPaginationService.page(
+                        paymentRepository, filtered ? spec : null, PAYMENTS_BY_DATE, cursor, size, count));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
         }
 
-        // Apply status filter if provided
-        if (status != null && !status.equals("all")) {
-            System.out.println("Applying status filter: " + status);
-            PaymentStatus statusEnum = PaymentStatus.valueOf(status.toUpperCase());
-            spec = spec.and(PaymentSpecification.hasStatus(statusEnum));
-        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by("date").ascending());
 
-        // Apply month filter if provided
-        if (month != null && !month.equals("all")) {
-            System.out.println("Applying month filter: " + month);
-
-            // Month filter options:
-            // - "current": Current month (from 1st day to last day of current month)
-            // - "last3": Last 3 months (from 1st day of month, 3 months ago to now)
-            // - "last6": Last 6 months (from 1st day of month, 6 months ago to now)
-            LocalDateTime startDate;
-            LocalDateTime endDate;
-
-            switch (month) {
-                case "current":
-                    // Current month: from first day of current month to last day of current month
-                    LocalDateTime now = LocalDateTime.now();
-                    startDate = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-                    endDate = now.withDayOfMonth(now.toLocalDate().lengthOfMonth())
-                                  .withHour(23).withMinute(59).withSecond(59);
-                    System.out.println("Current month filter - startDate: " + startDate + ", endDate: " + endDate);
-                    break;
-                case "last3":
-                    // Last 3 months: from 1st day of month, 3 months ago to now
-                    LocalDateTime nowForLast3 = LocalDateTime.now();
-                    startDate = nowForLast3.withDayOfMonth(1).minusMonths(3).withHour(0).withMinute(0).withSecond(0);
-                    endDate = nowForLast3.withHour(23).withMinute(59).withSecond(59);
-                    System.out.println("Last 3 months filter - startDate: " + startDate + ", endDate: " + endDate);
-                    break;
-                case "last6":
-                    // Last 6 months: from 1st day of month, 6 months ago to now
-                    LocalDateTime nowForLast6 = LocalDateTime.now();
-                    startDate = nowForLast6.withDayOfMonth(1).minusMonths(6).withHour(0).withMinute(0).withSecond(0);
-                    endDate = nowForLast6.withHour(23).withMinute(59).withSecond(59);
-                    System.out.println("Last 6 months filter - startDate: " + startDate + ", endDate: " + endDate);
-                    break;
-                default:
-                    // Default to last year
-                    endDate = LocalDateTime.now();
-                    startDate = endDate.minusYears(1);
+        try {
+            // Lean view for the admin table: PaymentSummary rows and the total from one SQL statement
+            if ("summary".equals(view)) {
+                Page<PaymentSummary> summaries = paymentRepository.findSummaries(spec, pageable);
+                return ResponseEntity.ok(summaries);
             }
-            spec = spec.and(PaymentSpecification.isBetweenDates(startDate, endDate));
-            System.out.println("Date filter applied");
-        }
 
-        try {
             // Execute query with combined specifications
             Page<PaymentEntity> payments = paymentRepository.findAll(spec, pageable);
             System.out.println("Combined filters returned " + payments.getTotalElements() + " payments");
@@ -146,47 +127,40 @@ public class PaymentController {
         }
     }
 
+    // Exportación completa en CSV o NDJSON (?format=csv|ndjson) con los mismos filtros del listado:
+    // una sola consulta leída con cursor y escrita a la respuesta a medida que llega (ver ExportService)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam Map<String, String> filters) {
+        ExportFormat exportFormat;
+        Specification<PaymentEntity> spec;
+        try {
+            exportFormat = ExportFormat.from(format);
+            spec = ReportSpecifications.forPayments(ReportSpecifications.normalize(ReportType.PAYMENTS, filters));
+        } catch (IllegalArgumentException e) {
+            return StreamingResponses.badRequest("Filtro o formato inválido: " + e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> exportService.exportPayments(spec, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pagos." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getPaymentStatistics() {
-        // Obtener estadísticas generales sin filtros ni paginación
-        List<PaymentEntity> allPayments = paymentRepository.findAll();
-
-        // Calcular estadísticas generales
-        long totalPayments = allPayments.size();
-        double totalAmount = allPayments.stream()
-                .mapToDouble(payment -> payment.getMount() != null ? payment.getMount() : 0.0)
-                .sum();
-
-        // Calcular pagos del mes actual
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfMonth = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime endOfMonth = now.withDayOfMonth(now.toLocalDate().lengthOfMonth())
-                                      .withHour(23).withMinute(59).withSecond(59);
-
-        double monthlyAmount = allPayments.stream()
-                .filter(payment -> {
-                    LocalDateTime paymentDate = payment.getDate();
-                    return paymentDate != null &&
-                           (paymentDate.isEqual(startOfMonth) || paymentDate.isAfter(startOfMonth)) &&
-                           (paymentDate.isEqual(endOfMonth) || paymentDate.isBefore(endOfMonth));
-                })
-                .mapToDouble(payment -> payment.getMount() != null ? payment.getMount() : 0.0)
-                .sum();
-
-        // Calcular pagadores activos (propietarios únicos con pagos)
-        long activePayers = allPayments.stream()
-                .filter(payment -> payment.getBoat() != null)
-                .filter(payment -> payment.getBoat().getOwner() != null)
-                .map(payment -> payment.getBoat().getOwner().getId())
-                .distinct()
-                .count();
+        // Estadísticas generales agregadas en la base: una consulta, sin cargar pagos en memoria
+        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay();
+        PaymentStatistics stats = paymentRepository.statistics(startOfMonth, startOfMonth.plusMonths(1));
 
         // Crear respuesta con estadísticas
         Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalPayments", totalPayments);
-        statistics.put("totalAmount", totalAmount);
-        statistics.put("monthlyAmount", monthlyAmount);
-        statistics.put("activePayers", activePayers);
+        statistics.put("totalPayments", stats.totalPayments());
+        statistics.put("totalAmount", stats.totalAmount());
+        statistics.put("monthlyAmount", stats.monthlyAmount());
+        statistics.put("activePayers", stats.activePayers());
 
         return ResponseEntity.ok(statistics);
     }
@@ -219,13 +193,29 @@ public class PaymentController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<PaymentEntity> updatePayment(@PathVariable Long id, @RequestBody PaymentEntity payment) {
-        if (!paymentRepository.existsById(id)) {
+    public ResponseEntity<?> updatePayment(@PathVariable Long id, @RequestBody PaymentEntity payment) {
+        Optional<PaymentEntity> existingOpt = paymentRepository.findById(id);
+        if (existingOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        PaymentEntity existing = existingOpt.get();
         payment.setId(id);
-        PaymentEntity updatedPayment = paymentRepository.save(payment);
-        return ResponseEntity.ok(updatedPayment);
+        if (payment.getVersion() == null) {
+            // Clientes que no envían la versión: se toma la actual (último en escribir gana, como antes)
+            payment.setVersion(existing.getVersion());
+        }
+        // El archivo del recibo solo lo cambia PaymentReceiptService: su referencia en stored_files es de este pago
+        payment.setInvoiceHash(existing.getInvoiceHash());
+        payment.setInvoiceContentType(existing.getInvoiceContentType());
+        payment.setInvoiceSize(existing.getInvoiceSize());
+        try {
+            PaymentEntity updatedPayment = paymentRepository.save(payment);
+            return ResponseEntity.ok(updatedPayment);
+        } catch (OptimisticLockingFailureException e) {
+            // La versión enviada ya no es la actual: otra solicitud modificó el pago
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("El pago fue actualizado por otra solicitud, intente nuevamente");
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -242,8 +232,7 @@ public class PaymentController {
             @PathVariable Long id,
             @RequestParam("file") MultipartFile file) {
 
-        Optional<PaymentEntity> paymentOpt = paymentRepository.findById(id);
-        if (paymentOpt.isEmpty()) {
+        if (!paymentRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -252,41 +241,29 @@ public class PaymentController {
         }
 
         try {
-            // Crear el directorio si no existe
-            Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-            Files.createDirectories(uploadPath);
-
-            // Generar nombre único para el archivo
+            // Nombre del recibo para mostrar y descargar; el contenido se guarda una sola vez por hash
             String originalFilename = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-
             String fileName = "receipt_" + id + "_" + System.currentTimeMillis() + "_" + originalFilename;
+            StoredFileEntity stored;
+            try (InputStream content = file.getInputStream()) {
+                stored = fileStorageService.store(content, originalFilename, file.getContentType());
+            }
 
-            // Ruta completa del archivo
-            Path filePath = uploadPath.resolve(fileName);
-
-            // Guardar el archivo
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Actualizar el pago
-            PaymentEntity payment = paymentOpt.get();
-            payment.setInvoice_url(fileName);
-            payment.setStatus(PaymentStatus.PAGADO);
-
-            if (payment.getReason() == ReasonPayment.PAGO) {
-                BoatEntity boat = payment.getBoat();
-                if (boat != null) {
-                    boat.setBalance(boat.getBalance() + payment.getMount());
-                    boatRepository.save(boat);
+            // Actualizar el pago y el saldo del bote (ver PaymentReceiptService)
+            try {
+                Optional<PaymentEntity> updated = paymentReceiptService.registerReceipt(id, fileName, stored);
+                if (updated.isEmpty()) {
+                    fileStorageService.release(stored.getHash());
+                    return ResponseEntity.notFound().build();
                 }
+                return ResponseEntity.ok(updated.get());
+            } catch (OptimisticLockingFailureException e) {
+                // Otra subida marcó esta cuota al mismo tiempo; se descarta este archivo
+                fileStorageService.release(stored.getHash());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("El pago fue actualizado por otra solicitud, intente nuevamente");
             }
 
-            PaymentEntity updatedPayment = paymentRepository.save(payment);
-            return ResponseEntity.ok(updatedPayment);
-
         } catch (IOException e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -295,68 +272,34 @@ public class PaymentController {
     }
 
     @GetMapping("/{id}/download-receipt")
-    public ResponseEntity<Resource> downloadReceipt(@PathVariable Long id) {
+    public void downloadReceipt(@PathVariable Long id,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
         Optional<PaymentEntity> paymentOpt = paymentRepository.findById(id);
         if (paymentOpt.isEmpty() || paymentOpt.get().getInvoice_url() == null) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
         PaymentEntity payment = paymentOpt.get();
 
-        try {
-            // Construir la ruta completa del archivo
-            Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-            Path filePath = uploadPath.resolve(payment.getInvoice_url()).normalize();
-
-            // Verificar seguridad
-            if (!filePath.startsWith(uploadPath)) {
-                return ResponseEntity.badRequest().build();
-            }
-
-            // Verificar que el archivo existe
-            if (!Files.exists(filePath)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            // Crear el recurso
-            Resource resource = new FileSystemResource(filePath);
-
-            if (!resource.exists() || !resource.isReadable()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            // Determinar content type
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                String filename = payment.getInvoice_url().toLowerCase();
-                if (filename.endsWith(".pdf")) {
-                    contentType = "application/pdf";
-                } else if (filename.endsWith(".jpg") || filename.endsWith(".jpeg")) {
-                    contentType = "image/jpeg";
-                } else if (filename.endsWith(".png")) {
-                    contentType = "image/png";
-                } else {
-                    contentType = "application/octet-stream";
-                }
-            }
-
-            // Usar el nombre original del archivo almacenado para la descarga
-            String originalFilename = payment.getInvoice_url();
-            String downloadFilename = originalFilename;
-
-            // Construir el header Content-Disposition correctamente escapando caracteres especiales
-            String escapedFilename = downloadFilename.replace("\"", "\\\"");
-            String contentDisposition = "attachment; filename=\"" + escapedFilename + "\"; filename*=UTF-8''" + java.net.URLEncoder.encode(downloadFilename, "UTF-8").replace("+", "%20");
+        Optional<StoredFileEntity> stored = fileStorageService.find(payment.getInvoiceHash());
+        if (stored.isPresent()) {
+            fileDownloadService.serve(stored.get(), fileStorageService.pathOf(stored.get()), payment.getInvoice_url(), request, response);
+            return;
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .contentLength(resource.contentLength())
-                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                    .body(resource);
+        // Recibos anteriores al almacén por contenido: archivo por nombre en uploadDir
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path filePath = uploadPath.resolve(payment.getInvoice_url()).normalize();
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        // Verificar seguridad
+        if (!filePath.startsWith(uploadPath)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
+
+        // Tipo guardado al subir el recibo; para recibos anteriores se deduce de la extensión
+        fileDownloadService.serve(filePath, payment.getInvoiceContentType(), payment.getInvoice_url(), request, response);
     }
 }
\ No newline at end of file
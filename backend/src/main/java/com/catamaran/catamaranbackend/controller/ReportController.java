@@ -1,122 +1,180 @@
 package com.catamaran.catamaranbackend.controller;
 
-import com.catamaran.catamaranbackend.service.ReportService;
+import com.catamaran.catamaranbackend.domain.ReportFormat;
+import com.catamaran.catamaranbackend.domain.ReportType;
+import com.catamaran.catamaranbackend.dto.ReportJobRequest;
+import com.catamaran.catamaranbackend.repository.ReportSpecifications;
+import com.catamaran.catamaranbackend.service.ReportCacheService;
+import com.catamaran.catamaranbackend.service.ReportJobService;
+import com.catamaran.catamaranbackend.service.ReportJobService.ReportJob;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/reports")
 @RequiredArgsConstructor
 public class ReportController {
 
-    private final ReportService reportService;
+    private final ReportCacheService reportCacheService;
+    private final ReportJobService reportJobService;
     private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
     // Excel Reports
+    // Se escriben directo a la respuesta (SXSSF + Stream JPA) o salen del caché si los datos no cambiaron;
+    // ver ReportService y ReportCacheService. Aceptan los filtros de los listados como query params
+    // (ver ReportSpecifications), p. ej. /payments/excel?status=POR_PAGAR&month=last3
     @GetMapping("/boats/excel")
-    public ResponseEntity<byte[]> downloadBoatsExcel() {
-        try {
-            byte[] excelData = reportService.generateBoatsExcelReport();
-            String filename = "embarcaciones_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".xlsx";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-
-            return new ResponseEntity<>(excelData, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> downloadBoatsExcel(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.BOATS, ReportFormat.EXCEL, filters);
     }
 
     @GetMapping("/payments/excel")
-    public ResponseEntity<byte[]> downloadPaymentsExcel() {
-        try {
-            byte[] excelData = reportService.generatePaymentsExcelReport();
-            String filename = "pagos_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".xlsx";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-
-            return new ResponseEntity<>(excelData, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> downloadPaymentsExcel(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.PAYMENTS, ReportFormat.EXCEL, filters);
     }
 
     @GetMapping("/maintenance/excel")
-    public ResponseEntity<byte[]> downloadMaintenanceExcel() {
-        try {
-            byte[] excelData = reportService.generateMaintenanceExcelReport();
-            String filename = "mantenimientos_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".xlsx";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-
-            return new ResponseEntity<>(excelData, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> downloadMaintenanceExcel(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.MAINTENANCE, ReportFormat.EXCEL, filters);
     }
 
     // PDF Reports
     @GetMapping("/boats/pdf")
-    public ResponseEntity<byte[]> downloadBoatsPdf() {
-        try {
-            byte[] pdfData = reportService.generateBoatsPdfReport();
-            String filename = "embarcaciones_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".pdf";
+    public ResponseEntity<StreamingResponseBody> downloadBoatsPdf(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.BOATS, ReportFormat.PDF, filters);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+    @GetMapping("/payments/pdf")
+    public ResponseEntity<StreamingResponseBody> downloadPaymentsPdf(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.PAYMENTS, ReportFormat.PDF, filters);
+    }
 
-            return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    @GetMapping("/maintenance/pdf")
+    public ResponseEntity<StreamingResponseBody> downloadMaintenancePdf(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.MAINTENANCE, ReportFormat.PDF, filters);
     }
 
-    @GetMapping("/payments/pdf")
-    public ResponseEntity<byte[]> downloadPaymentsPdf() {
+    // Libro de cierre de mes: embarcaciones, pagos y mantenimientos en un mismo Excel, leídos del
+    // mismo snapshot (ver FleetWorkbookService)
+    @GetMapping("/fleet/excel")
+    public ResponseEntity<StreamingResponseBody> downloadFleetExcel(@RequestParam Map<String, String> filters) {
+        return reportDownload(ReportType.FLEET, ReportFormat.EXCEL, filters);
+    }
+
+    // Asynchronous report jobs
+    // Se generan en el pool de ReportJobService; el cliente consulta el estado y descarga por id
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> submitJob(@RequestBody ReportJobRequest request) {
+        if (request.type() == null || request.format() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "type y format son obligatorios"));
+        }
+        if (!request.type().supports(request.format())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El reporte " + request.type() + " no está disponible en " + request.format()));
+        }
         try {
-            byte[] pdfData = reportService.generatePaymentsPdfReport();
-            String filename = "pagos_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".pdf";
+            ReportJob job = reportJobService.submit(request.type(), request.format(), request.filters());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/reports/jobs/" + job.getId()))
+                    .body(toJobData(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Filtro inválido: " + e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", "La cola de reportes está llena, intente nuevamente en unos segundos"));
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable UUID id) {
+        return reportJobService.find(id)
+                .map(job -> ResponseEntity.ok(toJobData(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadJob(@PathVariable UUID id) {
+        Optional<ReportJob> jobOpt = reportJobService.find(id);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ReportJob job = jobOpt.get();
+        if (job.getStatus() != ReportJobService.JobStatus.COMPLETADO) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        Resource resource = new FileSystemResource(job.getFile());
+        if (!resource.exists()) {
+            return ResponseEntity.notFound().build();
+        }
+        String filename = job.getType().getFilePrefix() + "_" + job.getCreatedAt().format(FILE_DATE_FORMATTER)
+                + "." + job.getFormat().getExtension();
+        return ResponseEntity.ok()
+                .contentType(job.getFormat().getMediaType())
+                .contentLength(job.getSize())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .body(resource);
+    }
 
-            return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    private Map<String, Object> toJobData(ReportJob job) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", job.getId());
+        data.put("type", job.getType());
+        data.put("format", job.getFormat());
+        data.put("filters", job.getFilters());
+        data.put("status", job.getStatus());
+        data.put("createdAt", job.getCreatedAt());
+        data.put("startedAt", job.getStartedAt());
+        data.put("completedAt", job.getCompletedAt());
+        if (job.getStatus() == ReportJobService.JobStatus.COMPLETADO) {
+            data.put("size", job.getSize());
+            data.put("downloadUrl", "/api/v1/reports/jobs/" + job.getId() + "/download");
+        }
+        if (job.getError() != null) {
+            data.put("error", job.getError());
         }
+        return data;
     }
 
-    @GetMapping("/maintenance/pdf")
-    public ResponseEntity<byte[]> downloadMaintenancePdf() {
+    private ResponseEntity<StreamingResponseBody> reportDownload(ReportType type, ReportFormat format, Map<String, String> requestFilters) {
+        if (!type.supports(format)) {
+            return StreamingResponses.badRequest("El reporte " + type + " no está disponible en " + format);
+        }
+        Map<String, String> filters;
         try {
-            byte[] pdfData = reportService.generateMaintenancePdfReport();
-            String filename = "mantenimientos_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".pdf";
+            filters = ReportSpecifications.normalize(type, requestFilters);
+        } catch (IllegalArgumentException e) {
+            return StreamingResponses.badRequest("Filtro inválido: " + e.getMessage());
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        String filename = type.getFilePrefix() + "_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + "." + format.getExtension();
+        StreamingResponseBody body = out -> reportCacheService.write(type, format, filters, out);
 
-            return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format.getMediaType());
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+/**
+ * Respuestas de los endpoints que escriben el cuerpo en streaming. Spring solo pasa el cuerpo al
+ * manejador de StreamingResponseBody si el método declara ResponseEntity&lt;StreamingResponseBody&gt;
+ * (con ResponseEntity&lt;?&gt; busca un conversor y falla con 500), así que los errores de
+ * validación de esos endpoints también se escriben como StreamingResponseBody.
+ */
+final class StreamingResponses {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StreamingResponses() {
+    }
+
+    // Mismo cuerpo que el resto de los 400 de la API: {"error": "..."}
+    static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        Map<String, String> error = Map.of("error", message);
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> MAPPER.writeValue(out, error));
+    }
+}
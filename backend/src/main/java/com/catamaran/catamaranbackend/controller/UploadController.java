@@ -0,0 +1,153 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import com.catamaran.catamaranbackend.auth.security.OwnerAuthorization;
+import com.catamaran.catamaranbackend.domain.BoatDocumentEntity;
+import com.catamaran.catamaranbackend.domain.UploadKind;
+import com.catamaran.catamaranbackend.domain.UploadSessionEntity;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.service.ResumableUploadService;
+import com.catamaran.catamaranbackend.service.UploadException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Subidas reanudables (protocolo al estilo tus 1.0): POST crea la subida, HEAD devuelve el offset
+ * guardado, PATCH envía una parte desde Upload-Offset y POST /{id}/complete la convierte en
+ * documento o recibo. Los recibos son solo del admin; los documentos, del admin o del propietario
+ * del bote. Cada subida solo la puede continuar quien la creó.
+ */
+@RestController
+@RequestMapping("/api/v1/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ResumableUploadService resumableUploadService;
+    private final BoatRepository boatRepository;
+    private final OwnerAuthorization ownerAuthorization;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createUpload(
+            @RequestParam("kind") UploadKind kind,
+            @RequestParam("targetId") Long targetId,
+            @RequestParam(value = "name", required = false) String documentName,
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestHeader(UPLOAD_LENGTH) long length) {
+
+        UserPrincipal user = authorize(kind, targetId);
+        UploadSessionEntity session = resumableUploadService.create(
+                kind, targetId, documentName, filename, contentType, length, user.id());
+
+        return ResponseEntity.created(URI.create("/api/v1/uploads/" + session.getId()))
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .body(Map.of(
+                        "id", session.getId(),
+                        "offset", session.getReceived(),
+                        "length", session.getLength()));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getOffset(@PathVariable String id) {
+        UploadSessionEntity session = resumableUploadService.get(id, currentUser().id());
+        return ResponseEntity.ok()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.getReceived()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/offset+octet-stream", "application/octet-stream"})
+    public ResponseEntity<Void> appendChunk(
+            @PathVariable String id,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+
+        long newOffset;
+        try (InputStream content = request.getInputStream()) {
+            newOffset = resumableUploadService.append(id, currentUser().id(), offset, content);
+        }
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(newOffset))
+                .build();
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Object> completeUpload(@PathVariable String id) throws IOException {
+        Object result = resumableUploadService.complete(id, currentUser().id());
+        // Un documento nuevo se crea; un recibo actualiza el pago existente
+        HttpStatus status = result instanceof BoatDocumentEntity ? HttpStatus.CREATED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String id) {
+        resumableUploadService.cancel(id, currentUser().id());
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+
+    @ExceptionHandler(UploadException.class)
+    public ResponseEntity<Map<String, Object>> handleUploadException(UploadException ex) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(ex.getStatus()).header(TUS_RESUMABLE, TUS_VERSION);
+        if (ex.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+            response.header(HttpHeaders.RETRY_AFTER, "5");
+        }
+        return response.body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(SecurityException.class)
+    public ResponseEntity<Map<String, Object>> handleSecurityException(SecurityException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", ex.getMessage()));
+    }
+
+    // Recibos: solo admin. Documentos: admin o el propietario del bote
+    private UserPrincipal authorize(UploadKind kind, Long targetId) {
+        UserPrincipal user = currentUser();
+        if (isAdmin()) {
+            return user;
+        }
+        if (kind == UploadKind.RECEIPT) {
+            throw new SecurityException("Acceso denegado. Se requieren permisos de administrador.");
+        }
+        UserPrincipal owner = ownerAuthorization.requireOwner();
+        boolean ownsBoat = boatRepository.findSummaryById(targetId)
+                .map(boat -> boat.getOwner() != null && boat.getOwner().getId().equals(owner.id()))
+                .orElseThrow(() -> new UploadException(HttpStatus.NOT_FOUND, "Bote no encontrado"));
+        if (!ownsBoat) {
+            throw new SecurityException("El bote pertenece a otro propietario");
+        }
+        return owner;
+    }
+
+    private static UserPrincipal currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal user)) {
+            throw new SecurityException("Usuario no autenticado");
+        }
+        return user;
+    }
+
+    private static boolean isAdmin() {
+        return SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.catamaran.catamaranbackend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Contador precalculado del dashboard de administración: una fila por (métrica, bucket),
+ * por ejemplo (BOATS_BY_TYPE, TURISMO) o (PAID_PAYMENTS_BY_MONTH, 2025-03).
+ * Lo mantiene AdminRollupListener en cada escritura y AdminRollupService lo reconcilia.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "admin_rollups")
+@IdClass(AdminRollupEntity.Key.class)
+public class AdminRollupEntity {
+
+    public static final String BOATS_BY_TYPE = "BOATS_BY_TYPE";
+    public static final String MAINTENANCES_BY_STATUS = "MAINTENANCES_BY_STATUS";
+    public static final String OWNERS = "OWNERS";
+    public static final String PAID_PAYMENTS_BY_MONTH = "PAID_PAYMENTS_BY_MONTH";
+    // Contador de escrituras por tabla (bucket = nombre de la tabla); versión de datos de los reportes.
+    // No se reconcilia: solo crece
+    public static final String DATA_VERSIONS = "DATA_VERSIONS";
+
+    // Buckets de OWNERS
+    public static final String OWNERS_TOTAL = "total";
+    public static final String OWNERS_ACTIVE = "active";
+    public static final String OWNERS_WITH_BOATS = "with_boats";
+
+    // Bucket para type/status nulos, igual que los gráficos originales
+    public static final String UNKNOWN = "UNKNOWN";
+
+    @Id
+    @Column(length = 40)
+    private String metric;
+
+    @Id
+    @Column(length = 40)
+    private String bucket;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String metric;
+        private String bucket;
+    }
+}
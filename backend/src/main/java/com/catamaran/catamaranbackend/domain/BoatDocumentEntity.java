@@ -1,5 +1,6 @@
 package com.catamaran.catamaranbackend.domain;
 
+import com.catamaran.catamaranbackend.service.StoredFileReferenceListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,17 +12,26 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "boat_documents")
+@EntityListeners(StoredFileReferenceListener.class)
+@Table(name = "boat_documents", indexes = @Index(name = "idx_boat_documents_url", columnList = "url"))
 public class BoatDocumentEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "boat_documents_seq")
+    @SequenceGenerator(name = "boat_documents_seq", sequenceName = "boat_documents_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
     private String url;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Tipo y tamaño del archivo, guardados al subirlo para servir la descarga sin inspeccionarlo
+    private String contentType;
+    private Long fileSize;
+
+    // SHA-256 del contenido en stored_files; null en documentos subidos antes del almacén por contenido
+    private String fileHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "boat_id")
     private BoatEntity boat;
 }
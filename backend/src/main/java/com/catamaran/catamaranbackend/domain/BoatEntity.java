@@ -2,11 +2,15 @@ package com.catamaran.catamaranbackend.domain;
 
 import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.List;
 
@@ -16,7 +20,27 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "boats")
+@NamedEntityGraph(
+        name = BoatEntity.GRAPH_SUMMARY,
+        attributeNodes = @NamedAttributeNode("owner")
+)
+@NamedEntityGraph(
+        name = BoatEntity.GRAPH_DOCUMENTS,
+        attributeNodes = {@NamedAttributeNode("owner"), @NamedAttributeNode("documents")}
+)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class BoatEntity {
+
+    /**
+     * Boat row plus its owner: list views and single-boat responses.
+     */
+    public static final String GRAPH_SUMMARY = "BoatEntity.summary";
+
+    /**
+     * Boat row, owner and documents: document endpoints.
+     */
+    public static final String GRAPH_DOCUMENTS = "BoatEntity.documents";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,22 +53,39 @@ public class BoatEntity {
     private String location;
     private Double price;
 
-    @OneToMany(mappedBy = "boat", cascade = CascadeType.REMOVE, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "boat", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<MaintananceEntity> maintanances;
 
-    @OneToMany(mappedBy = "boat", cascade = CascadeType.REMOVE, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "boat", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<BoatDocumentEntity> documents;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private UserEntity owner;
 
-    @OneToMany(mappedBy = "boat", cascade = CascadeType.REMOVE, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "boat", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<PaymentEntity> payments;
 
     @Column(nullable = false)
     private Double balance = 0.0;
+
+    // Copia almacenada de "owner IS NULL" para filtrar Disponible/Ocupado con índice parcial
+    @Column(name = "available")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean available;
+
+    @PrePersist
+    @PreUpdate
+    void syncAvailability() {
+        available = owner == null;
+    }
 }
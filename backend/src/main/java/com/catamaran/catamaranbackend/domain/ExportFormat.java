@@ -0,0 +1,33 @@
+package com.catamaran.catamaranbackend.domain;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formatos de las exportaciones de listados (?format=csv | ndjson).
+ */
+public enum ExportFormat {
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat from(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
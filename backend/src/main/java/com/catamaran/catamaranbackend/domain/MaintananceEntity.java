@@ -14,10 +14,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "maintenances")
+@Table(name = "maintenances", indexes = @Index(name = "idx_maintenances_scheduled_id", columnList = "dateScheduled, id"))
 public class MaintananceEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "maintenances_seq")
+    @SequenceGenerator(name = "maintenances_seq", sequenceName = "maintenances_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -1,6 +1,7 @@
 package com.catamaran.catamaranbackend.domain;
 
 import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.service.StoredFileReferenceListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,23 +16,36 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "payments")
+@EntityListeners(StoredFileReferenceListener.class)
+@Table(name = "payments", indexes = @Index(name = "idx_payments_date_id", columnList = "date, id"))
 public class PaymentEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     private Double mount;
     private LocalDateTime date;
     private String invoice_url;
 
+    // Tipo y tamaño del recibo, guardados al subirlo para servir la descarga sin inspeccionar el archivo
+    private String invoiceContentType;
+    private Long invoiceSize;
+
+    // SHA-256 del recibo en stored_files; null en recibos subidos antes del almacén por contenido
+    private String invoiceHash;
+
     @Enumerated(EnumType.STRING)
     private ReasonPayment reason;
 
     @Enumerated(EnumType.STRING)
     private PaymentStatus status;
 
-    @OneToOne
+    // Bloqueo optimista: dos subidas de recibo concurrentes no pueden marcar la misma cuota como pagada
+    @Version
+    private Long version;
+
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "maintanance_id")
     @JsonIgnore
     private MaintananceEntity maintanance;
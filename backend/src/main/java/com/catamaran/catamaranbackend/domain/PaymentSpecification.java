@@ -107,4 +107,72 @@ public class PaymentSpecification {
         return (root, query, criteriaBuilder) ->
             criteriaBuilder.between(root.get("date"), startDate, endDate);
     }
-}
\ No newline at end of file
+
+    /**
+     * Specification for month filter:
+     * "current" (mes actual), "last3" / "last6" (desde el día 1 de hace 3 / 6 meses hasta hoy);
+     * cualquier otro valor, el último año
+     */
+    public static Specification<PaymentEntity> isInMonth(String month) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startDate;
+        LocalDateTime endDate;
+
+        switch (month) {
+            case "current":
+                startDate = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
+                endDate = now.withDayOfMonth(now.toLocalDate().lengthOfMonth())
+                              .withHour(23).withMinute(59).withSecond(59);
+                break;
+            case "last3":
+                startDate = now.withDayOfMonth(1).minusMonths(3).withHour(0).withMinute(0).withSecond(0);
+                endDate = now.withHour(23).withMinute(59).withSecond(59);
+                break;
+            case "last6":
+                startDate = now.withDayOfMonth(1).minusMonths(6).withHour(0).withMinute(0).withSecond(0);
+                endDate = now.withHour(23).withMinute(59).withSecond(59);
+                break;
+            default:
+                // Default to last year
+                endDate = now;
+                startDate = endDate.minusYears(1);
+        }
+        return isBetweenDates(startDate, endDate);
+    }
+
+    /**
+     * Specification for owner filter
+     */
+    public static Specification<PaymentEntity> belongsToOwner(Long ownerId) {
+        return (root, query, criteriaBuilder) ->
+            criteriaBuilder.equal(root.get("boat").get("owner").get("id"), ownerId);
+    }
+
+    /**
+     * Filtros del listado de pagos (search, reason, month, status; "all" o vacío no filtra).
+     * Los usan PaymentController.getAll y los reportes. Devuelve null si no hay ninguno.
+     *
+     * @throws IllegalArgumentException si reason o status no son valores válidos
+     */
+    public static Specification<PaymentEntity> fromFilters(String search, String reason, String month, String status) {
+        Specification<PaymentEntity> spec = null;
+
+        if (search != null && !search.trim().isEmpty()) {
+            spec = and(spec, hasSearchTerm(search.trim()));
+        }
+        if (reason != null && !reason.isEmpty() && !reason.equals("all")) {
+            spec = and(spec, hasReason(ReasonPayment.valueOf(reason.toUpperCase())));
+        }
+        if (status != null && !status.isEmpty() && !status.equals("all")) {
+            spec = and(spec, hasStatus(PaymentStatus.valueOf(status.toUpperCase())));
+        }
+        if (month != null && !month.isEmpty() && !month.equals("all")) {
+            spec = and(spec, isInMonth(month));
+        }
+        return spec;
+    }
+
+    private static Specification<PaymentEntity> and(Specification<PaymentEntity> spec, Specification<PaymentEntity> next) {
+        return spec == null ? next : spec.and(next);
+    }
+}
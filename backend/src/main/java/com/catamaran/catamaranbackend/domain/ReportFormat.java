@@ -0,0 +1,33 @@
+package com.catamaran.catamaranbackend.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos de salida de los reportes. El nombre en minúsculas es el segmento de la URL (/reports/.../excel).
+ */
+public enum ReportFormat {
+    EXCEL("xlsx", MediaType.APPLICATION_OCTET_STREAM),
+    PDF("pdf", MediaType.APPLICATION_PDF);
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ReportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    @JsonCreator
+    public static ReportFormat from(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
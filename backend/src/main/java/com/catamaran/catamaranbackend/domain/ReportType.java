@@ -0,0 +1,43 @@
+package com.catamaran.catamaranbackend.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.List;
+
+/**
+ * Reportes disponibles. El nombre en minúsculas es el segmento de la URL (/reports/boats/...).
+ * Cada reporte declara las tablas que lee: su versión de datos sale de esas tablas.
+ */
+public enum ReportType {
+    // El saldo del bote cambia con un UPDATE masivo al registrar un pago; la versión de payments lo cubre
+    BOATS("embarcaciones", List.of("boats", "users", "payments")),
+    PAYMENTS("pagos", List.of("payments", "boats", "users")),
+    MAINTENANCE("mantenimientos", List.of("maintenances", "boats")),
+    // Cierre de mes: embarcaciones, pagos y mantenimientos en un solo libro (solo Excel)
+    FLEET("cierre_flota", List.of("boats", "users", "payments", "maintenances"));
+
+    private final String filePrefix;
+    private final List<String> tables;
+
+    ReportType(String filePrefix, List<String> tables) {
+        this.filePrefix = filePrefix;
+        this.tables = tables;
+    }
+
+    public String getFilePrefix() {
+        return filePrefix;
+    }
+
+    public List<String> getTables() {
+        return tables;
+    }
+
+    public boolean supports(ReportFormat format) {
+        return this != FLEET || format == ReportFormat.EXCEL;
+    }
+
+    @JsonCreator
+    public static ReportType from(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
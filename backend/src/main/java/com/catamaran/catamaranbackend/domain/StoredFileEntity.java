@@ -0,0 +1,45 @@
+package com.catamaran.catamaranbackend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Contenido de un archivo subido, identificado por su SHA-256. Varios documentos o recibos con el
+ * mismo contenido apuntan al mismo registro; refCount cuenta cuántos, y al llegar a cero se
+ * borran el registro y el archivo (ver FileStorageService).
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stored_files")
+public class StoredFileEntity {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Tamaño del contenido original y, si está comprimido, del archivo en disco
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private long storedSize;
+
+    @Column(nullable = false)
+    private boolean compressed;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
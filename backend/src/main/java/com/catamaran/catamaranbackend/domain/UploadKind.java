@@ -0,0 +1,6 @@
+package com.catamaran.catamaranbackend.domain;
+
+public enum UploadKind {
+    DOCUMENT,
+    RECEIPT
+}
@@ -0,0 +1,66 @@
+package com.catamaran.catamaranbackend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Subida reanudable en curso (ver ResumableUploadService). El contenido se escribe en
+ * storage.dir/partial/{id}.upload; received es cuántos bytes ya están escritos, desde donde
+ * el cliente continúa. Al completarse se convierte en un documento o un recibo y se borra.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "upload_sessions", indexes = @Index(name = "idx_upload_sessions_expires_at", columnList = "expiresAt"))
+public class UploadSessionEntity {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UploadKind kind;
+
+    // Bote del documento o pago del recibo
+    @Column(nullable = false)
+    private Long targetId;
+
+    private String documentName;
+
+    private String filename;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private long length;
+
+    @Column(nullable = false)
+    private long received;
+
+    // Hash en stored_files una vez completo el contenido; la subida tiene esa referencia hasta que
+    // el documento o el recibo se guardan, así un conflicto se reintenta sin volver a subir nada
+    @Column(length = 64)
+    private String storedHash;
+
+    // Usuario que creó la subida; solo él puede continuarla
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Dos instancias no pueden avanzar la misma subida a la vez
+    @Version
+    private Long version;
+}
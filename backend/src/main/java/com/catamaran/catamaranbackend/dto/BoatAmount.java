@@ -0,0 +1,3 @@
+package com.catamaran.catamaranbackend.dto;
+
+public record BoatAmount(Long boatId, Double amount) {}
@@ -0,0 +1,5 @@
+package com.catamaran.catamaranbackend.dto;
+
+import com.catamaran.catamaranbackend.domain.BoatType;
+
+public record BoatTypeCount(BoatType type, Long count) {}
@@ -0,0 +1,35 @@
+package com.catamaran.catamaranbackend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de una página keyset: (fecha, id) de la última fila entregada.
+ * Viaja al cliente como texto opaco en base64url; la fecha puede ser null.
+ */
+public record KeysetCursor(LocalDateTime date, Long id) {
+
+    private static final String NULL_DATE = "-";
+
+    public String encode() {
+        String raw = (date != null ? date.toString() : NULL_DATE) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException si el cursor no fue generado por {@link #encode()}
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            String date = raw.substring(0, separator);
+            return new KeysetCursor(
+                    NULL_DATE.equals(date) ? null : LocalDateTime.parse(date),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
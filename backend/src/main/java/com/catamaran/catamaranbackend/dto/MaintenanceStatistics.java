@@ -0,0 +1,3 @@
+package com.catamaran.catamaranbackend.dto;
+
+public record MaintenanceStatistics(Long totalMaintenances, Long pendingMaintenances, Long completedMaintenances, Double totalCost) {}
@@ -0,0 +1,5 @@
+package com.catamaran.catamaranbackend.dto;
+
+import com.catamaran.catamaranbackend.domain.MaintananceStatus;
+
+public record MaintenanceStatusCount(MaintananceStatus status, Long count) {}
@@ -0,0 +1,3 @@
+package com.catamaran.catamaranbackend.dto;
+
+public record MonthlyAmount(Integer year, Integer month, Double amount) {}
@@ -0,0 +1,11 @@
+package com.catamaran.catamaranbackend.dto;
+
+import com.catamaran.catamaranbackend.domain.Role;
+
+import java.util.UUID;
+
+// Fila del listado de propietarios del admin; total es el COUNT(*) OVER () del filtro completo
+public record OwnerListRow(
+    Long id, String email, String username, String fullName, String phoneNumber,
+    Role role, Boolean status, UUID uniqueId, Long boatsCount, Long total
+) {}
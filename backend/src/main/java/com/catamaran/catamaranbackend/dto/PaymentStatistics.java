@@ -0,0 +1,3 @@
+package com.catamaran.catamaranbackend.dto;
+
+public record PaymentStatistics(Long totalPayments, Double totalAmount, Double monthlyAmount, Long activePayers) {}
@@ -0,0 +1,12 @@
+package com.catamaran.catamaranbackend.dto;
+
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.ReasonPayment;
+
+import java.time.LocalDateTime;
+
+// Fila de la tabla de pagos del admin: solo las columnas que muestra la vista
+public record PaymentSummary(
+    Long id, Double amount, LocalDateTime date, PaymentStatus status, ReasonPayment reason,
+    String invoiceUrl, String boatName, String ownerName
+) {}
@@ -0,0 +1,9 @@
+package com.catamaran.catamaranbackend.dto;
+
+import com.catamaran.catamaranbackend.domain.ReportFormat;
+import com.catamaran.catamaranbackend.domain.ReportType;
+
+import java.util.Map;
+
+// Cuerpo de POST /api/v1/reports/jobs
+public record ReportJobRequest(ReportType type, ReportFormat format, Map<String, String> filters) {}
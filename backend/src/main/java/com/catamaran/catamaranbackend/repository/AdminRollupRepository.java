@@ -0,0 +1,21 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.domain.AdminRollupEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AdminRollupRepository extends JpaRepository<AdminRollupEntity, AdminRollupEntity.Key> {
+    List<AdminRollupEntity> findByMetric(String metric);
+
+    // La reconciliación bloquea las filas antes de recalcular para no pisar incrementos concurrentes,
+    // en el mismo orden que AdminRollupService.apply
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AdminRollupEntity r ORDER BY r.metric, r.bucket")
+    List<AdminRollupEntity> lockAll();
+}
@@ -1,11 +1,16 @@
 package com.catamaran.catamaranbackend.repository;
 
 import com.catamaran.catamaranbackend.domain.BoatDocumentEntity;
-import com.catamaran.catamaranbackend.domain.BoatEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Optional;
+
 @Repository
-public interface BoatDocumentRepository extends JpaRepository<BoatDocumentEntity, Long> {}
+public interface BoatDocumentRepository extends JpaRepository<BoatDocumentEntity, Long> {
+    long countByBoatOwnerId(Long ownerId);
+
+    // Los documentos subidos por el propietario se registran con /documents/..., los del admin con /api/v1/boat/documents/...
+    Optional<BoatDocumentEntity> findFirstByUrlIn(Collection<String> urls);
+}
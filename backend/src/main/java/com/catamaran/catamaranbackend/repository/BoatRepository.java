@@ -1,36 +1,53 @@
 package com.catamaran.catamaranbackend.repository;
 
-import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
 import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.Role;
 import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.dto.BoatTypeCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BoatRepository extends JpaRepository<BoatEntity, Long> {
-    List<BoatEntity> findByOwner(UserEntity owner);
-    Page<BoatEntity> findByOwner(UserEntity owner, Pageable pageable);
+public interface BoatRepository extends JpaRepository<BoatEntity, Long>, JpaSpecificationExecutor<BoatEntity> {
+    List<BoatEntity> findByOwnerId(Long ownerId);
+    Page<BoatEntity> findByOwnerId(Long ownerId, Pageable pageable);
+    long countByOwnerId(Long ownerId);
 
-    // Método corregido para búsqueda y filtrado
-    @Query("SELECT b FROM BoatEntity b WHERE " +
-            "(:search IS NULL OR :search = '' OR " +
-            "LOWER(b.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(b.model) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(b.location) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
-            "(:type IS NULL OR b.type = :type) AND " +
-            "(:status = 'all' OR " +
-            "(:status = 'Disponible' AND b.owner IS NULL) OR " +
-            "(:status = 'Ocupado' AND b.owner IS NOT NULL))")
-    Page<BoatEntity> findWithFilters(@Param("search") String search,
-                                     @Param("type") BoatType type,
-                                     @Param("status") String status,
-                                     Pageable pageable);
+    // Suma atómica al saldo en la base, sin leer ni volver a guardar el bote
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BoatEntity b SET b.balance = COALESCE(b.balance, 0) + :amount WHERE b.id = :boatId")
+    int addToBalance(@Param("boatId") Long boatId, @Param("amount") Double amount);
+
+    // Reconciliación de los contadores del dashboard de administración
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.BoatTypeCount(b.type, COUNT(b)) FROM BoatEntity b GROUP BY b.type")
+    List<BoatTypeCount> countByType();
+
+    @Query("SELECT COUNT(DISTINCT b.owner.id) FROM BoatEntity b WHERE b.owner.role = :role")
+    long countDistinctOwners(@Param("role") Role role);
+
+    // Bote con su propietario, sin colecciones (vistas de detalle y asignación)
+    @EntityGraph(BoatEntity.GRAPH_SUMMARY)
+    Optional<BoatEntity> findSummaryById(Long id);
+
+    // Bote con propietario y documentos (endpoints de documentos)
+    @EntityGraph(BoatEntity.GRAPH_DOCUMENTS)
+    Optional<BoatEntity> findWithDocumentsById(Long id);
+
+    // Listado con filtros (ver BoatSpecifications), cargando solo el propietario
+    @Override
+    @EntityGraph(BoatEntity.GRAPH_SUMMARY)
+    Page<BoatEntity> findAll(Specification<BoatEntity> spec, Pageable pageable);
 
     // Método alternativo para búsqueda más eficiente - solo búsqueda de texto
     @Query("SELECT b FROM BoatEntity b WHERE " +
@@ -49,8 +66,8 @@ public interface BoatRepository extends JpaRepository<BoatEntity, Long> {
     // Método para filtrar por estado
     @Query("SELECT b FROM BoatEntity b WHERE " +
             "(:status = 'all' OR " +
-            "(:status = 'Disponible' AND b.owner IS NULL) OR " +
-            "(:status = 'Ocupado' AND b.owner IS NOT NULL))")
+            "(:status = 'Disponible' AND b.available = true) OR " +
+            "(:status = 'Ocupado' AND b.available = false))")
     Page<BoatEntity> findByStatus(@Param("status") String status,
                                   Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import org.springframework.data.jpa.domain.Specification;
+
+public class BoatSpecifications {
+
+    // LOWER(col) LIKE '%term%' sobre name, model y location; en PostgreSQL lo resuelven
+    // los índices GIN pg_trgm sobre lower(col) creados por DatabaseInitializer
+    public static Specification<BoatEntity> hasSearchTerm(String searchTerm) {
+        return (root, query, criteriaBuilder) -> {
+            if (searchTerm == null || searchTerm.trim().isEmpty()) {
+                return criteriaBuilder.conjunction();
+            }
+
+            String searchPattern = "%" + searchTerm.trim().toLowerCase() + "%";
+
+            return criteriaBuilder.or(
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), searchPattern),
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("model")), searchPattern),
+                criteriaBuilder.like(criteriaBuilder.lower(root.get("location")), searchPattern)
+            );
+        };
+    }
+
+    public static Specification<BoatEntity> hasType(BoatType type) {
+        return (root, query, criteriaBuilder) -> {
+            if (type == null) {
+                return criteriaBuilder.conjunction();
+            }
+            return criteriaBuilder.equal(root.get("type"), type);
+        };
+    }
+
+    // "Disponible" / "Ocupado" sobre la columna almacenada; cualquier otro valor no filtra
+    public static Specification<BoatEntity> hasAvailability(String status) {
+        return (root, query, criteriaBuilder) -> {
+            if ("Disponible".equals(status)) {
+                return criteriaBuilder.isTrue(root.get("available"));
+            }
+            if ("Ocupado".equals(status)) {
+                return criteriaBuilder.isFalse(root.get("available"));
+            }
+            return criteriaBuilder.conjunction();
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.dto.KeysetCursor;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+public class KeysetSpecifications {
+
+    /**
+     * Filas posteriores al cursor en el orden (dateAttribute, id) indicado.
+     * Los NULL de la fecha se tratan como el valor más alto, igual que PostgreSQL por defecto:
+     * van al final en ASC y al principio en DESC.
+     */
+    public static <T> Specification<T> after(KeysetCursor cursor, String dateAttribute, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+
+            Path<LocalDateTime> date = root.get(dateAttribute);
+            Path<Long> id = root.get("id");
+            boolean ascending = direction.isAscending();
+
+            var idAfter = ascending ? criteriaBuilder.greaterThan(id, cursor.id()) : criteriaBuilder.lessThan(id, cursor.id());
+
+            if (cursor.date() == null) {
+                var sameDate = criteriaBuilder.and(criteriaBuilder.isNull(date), idAfter);
+                // En DESC los NULL van primero: después vienen todas las fechas no nulas
+                return ascending ? sameDate : criteriaBuilder.or(sameDate, criteriaBuilder.isNotNull(date));
+            }
+
+            var dateAfter = ascending
+                    ? criteriaBuilder.greaterThan(date, cursor.date())
+                    : criteriaBuilder.lessThan(date, cursor.date());
+            var sameDate = criteriaBuilder.and(criteriaBuilder.equal(date, cursor.date()), idAfter);
+            // En ASC los NULL van al final, después de todas las fechas
+            return ascending
+                    ? criteriaBuilder.or(dateAfter, sameDate, criteriaBuilder.isNull(date))
+                    : criteriaBuilder.or(dateAfter, sameDate);
+        };
+    }
+}
@@ -3,23 +3,39 @@ package com.catamaran.catamaranbackend.repository;
 import com.catamaran.catamaranbackend.domain.MaintananceEntity;
 import com.catamaran.catamaranbackend.domain.MaintananceStatus;
 import com.catamaran.catamaranbackend.domain.MaintananceType;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.dto.BoatAmount;
+import com.catamaran.catamaranbackend.dto.MaintenanceStatistics;
+import com.catamaran.catamaranbackend.dto.MaintenanceStatusCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MaintananceRepository extends JpaRepository<MaintananceEntity, Long>, JpaSpecificationExecutor<MaintananceEntity> {
     Page<MaintananceEntity> findByBoatId(Long boatId, Pageable pageable);
 
-    long countByStatus(MaintananceStatus status);
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.MaintenanceStatusCount(m.status, COUNT(m)) " +
+           "FROM MaintananceEntity m GROUP BY m.status")
+    List<MaintenanceStatusCount> countByStatus();
 
-    @Query("SELECT SUM(m.cost) FROM MaintananceEntity m WHERE m.cost IS NOT NULL")
-    Double sumTotalCost();
+    // Estadísticas generales en una sola consulta: total, pendientes (PROGRAMADO), completados y costo acumulado
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.MaintenanceStatistics(" +
+           "COUNT(m), " +
+           "COUNT(m) FILTER (WHERE m.status = com.catamaran.catamaranbackend.domain.MaintananceStatus.PROGRAMADO), " +
+           "COUNT(m) FILTER (WHERE m.status = com.catamaran.catamaranbackend.domain.MaintananceStatus.COMPLETADO), " +
+           "COALESCE(SUM(m.cost), 0.0)) " +
+           "FROM MaintananceEntity m")
+    MaintenanceStatistics statistics();
 
     // Additional query methods for specific filtering
     Page<MaintananceEntity> findByStatus(MaintananceStatus status, Pageable pageable);
@@ -27,5 +43,34 @@ public interface MaintananceRepository extends JpaRepository<MaintananceEntity,
     Page<MaintananceEntity> findByType(MaintananceType type, Pageable pageable);
 
     Page<MaintananceEntity> findByStatusAndType(MaintananceStatus status, MaintananceType type, Pageable pageable);
-}
 
+    // Costo de mantenimientos sin pago liquidado, agrupado por bote
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.BoatAmount(m.boat.id, SUM(m.cost)) " +
+           "FROM MaintananceEntity m LEFT JOIN m.payment p " +
+           "WHERE m.boat.id IN :boatIds AND m.cost IS NOT NULL AND (p IS NULL OR p.status IS NULL OR p.status <> :paidStatus) " +
+           "GROUP BY m.boat.id")
+    List<BoatAmount> sumUnpaidCostByBoatIds(@Param("boatIds") Collection<Long> boatIds,
+                                            @Param("paidStatus") PaymentStatus paidStatus);
+
+    // Conteo de mantenimientos por estado para los botes de un propietario
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.MaintenanceStatusCount(m.status, COUNT(m)) " +
+           "FROM MaintananceEntity m WHERE m.boat.owner.id = :ownerId GROUP BY m.status")
+    List<MaintenanceStatusCount> countByStatusForOwner(@Param("ownerId") Long ownerId);
+
+    // Próximos mantenimientos de un propietario; el Pageable limita el número de filas
+    @EntityGraph(attributePaths = {"boat", "payment"})
+    @Query("SELECT m FROM MaintananceEntity m WHERE m.boat.owner.id = :ownerId " +
+           "AND m.status IN :statuses AND m.dateScheduled > :from AND m.dateScheduled < :to " +
+           "ORDER BY m.dateScheduled ASC")
+    List<MaintananceEntity> findUpcomingForOwner(@Param("ownerId") Long ownerId,
+                                                 @Param("statuses") Collection<MaintananceStatus> statuses,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to,
+                                                 Pageable limit);
+
+    // Mantenimientos más recientes de un propietario (realizados o programados)
+    @EntityGraph(attributePaths = {"boat", "payment"})
+    @Query("SELECT m FROM MaintananceEntity m WHERE m.boat.owner.id = :ownerId " +
+           "ORDER BY COALESCE(m.datePerformed, m.dateScheduled) DESC NULLS LAST, m.id DESC")
+    List<MaintananceEntity> findRecentForOwner(@Param("ownerId") Long ownerId, Pageable limit);
+}
@@ -61,4 +61,21 @@ public class MaintananceSpecifications {
             return criteriaBuilder.equal(root.get("boat").get("owner").get("id"), ownerId);
         };
     }
-}
\ No newline at end of file
+
+    // Filtros del listado de mantenimientos; los usan MaintananceController.getAll y los reportes.
+    // null si no hay ninguno
+    public static Specification<MaintananceEntity> fromFilters(String search, MaintananceStatus status, MaintananceType type) {
+        Specification<MaintananceEntity> spec = null;
+
+        if (search != null && !search.trim().isEmpty()) {
+            spec = hasSearchTerm(search);
+        }
+        if (status != null) {
+            spec = spec == null ? hasStatus(status) : spec.and(hasStatus(status));
+        }
+        if (type != null) {
+            spec = spec == null ? hasType(type) : spec.and(hasType(type));
+        }
+        return spec;
+    }
+}
@@ -1,10 +1,15 @@
 package com.catamaran.catamaranbackend.repository;
 
 import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.dto.BoatAmount;
+import com.catamaran.catamaranbackend.dto.MonthlyAmount;
+import com.catamaran.catamaranbackend.dto.PaymentStatistics;
+import com.catamaran.catamaranbackend.dto.PaymentTotals;
 import com.catamaran.catamaranbackend.domain.PaymentStatus;
 import com.catamaran.catamaranbackend.domain.ReasonPayment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -12,10 +17,11 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<PaymentEntity, Long>, JpaSpecificationExecutor<PaymentEntity> {
+public interface PaymentRepository extends JpaRepository<PaymentEntity, Long>, JpaSpecificationExecutor<PaymentEntity>, PaymentRepositoryCustom {
     Page<PaymentEntity> findByBoatId(Long boatId, Pageable pageable);
 
     Page<PaymentEntity> findByReason(ReasonPayment reason, Pageable pageable);
@@ -29,4 +35,42 @@ public interface PaymentRepository extends JpaRepository<PaymentEntity, Long>, J
            "LOWER(p.boat.owner.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(p.invoice_url) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<PaymentEntity> findBySearchTerm(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Pagos de todos los botes de un propietario, con el bote cargado en la misma consulta
+    @EntityGraph(attributePaths = "boat")
+    List<PaymentEntity> findByBoatOwnerIdOrderByDateDesc(Long ownerId);
+
+    @EntityGraph(attributePaths = "boat")
+    Page<PaymentEntity> findByBoatOwnerId(Long ownerId, Pageable pageable);
+
+    // Lista acotada (sin COUNT): el Pageable solo fija orden y límite
+    @EntityGraph(attributePaths = "boat")
+    List<PaymentEntity> findByBoatOwnerIdAndStatus(Long ownerId, PaymentStatus status, Pageable limit);
+
+    // Cantidad y monto de pagos de un propietario en un estado
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.PaymentTotals(COUNT(p), COALESCE(SUM(p.mount), 0.0)) " +
+           "FROM PaymentEntity p WHERE p.boat.owner.id = :ownerId AND p.status = :status")
+    PaymentTotals totalsForOwner(@Param("ownerId") Long ownerId, @Param("status") PaymentStatus status);
+
+    // Deuda abierta por bote (cuotas POR_PAGAR del motivo indicado)
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.BoatAmount(p.boat.id, SUM(p.mount)) " +
+           "FROM PaymentEntity p WHERE p.boat.id IN :boatIds AND p.reason = :reason AND p.status = :status " +
+           "GROUP BY p.boat.id")
+    List<BoatAmount> sumByBoatIds(@Param("boatIds") Collection<Long> boatIds,
+                                  @Param("reason") ReasonPayment reason,
+                                  @Param("status") PaymentStatus status);
+
+    // Monto por mes calendario de los pagos en un estado (reconciliación del dashboard de administración)
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.MonthlyAmount(YEAR(p.date), MONTH(p.date), SUM(p.mount)) " +
+           "FROM PaymentEntity p WHERE p.status = :status AND p.date IS NOT NULL AND p.mount IS NOT NULL " +
+           "GROUP BY YEAR(p.date), MONTH(p.date)")
+    List<MonthlyAmount> sumByMonth(@Param("status") PaymentStatus status);
+
+    // Estadísticas generales en una sola consulta: total, monto, monto del mes [from, to) y pagadores distintos
+    @Query("SELECT new com.catamaran.catamaranbackend.dto.PaymentStatistics(" +
+           "COUNT(p), COALESCE(SUM(p.mount), 0.0), " +
+           "COALESCE(SUM(p.mount) FILTER (WHERE p.date >= :from AND p.date < :to), 0.0), " +
+           "COUNT(DISTINCT o.id)) " +
+           "FROM PaymentEntity p LEFT JOIN p.boat b LEFT JOIN b.owner o")
+    PaymentStatistics statistics(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
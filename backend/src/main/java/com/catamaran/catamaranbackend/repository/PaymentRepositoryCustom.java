@@ -0,0 +1,16 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.dto.PaymentSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface PaymentRepositoryCustom {
+
+    /**
+     * Página de pagos proyectada a {@link PaymentSummary}: una sola sentencia SQL que trae
+     * las columnas de la tabla y el total (COUNT(*) OVER ()) sin cargar entidades.
+     */
+    Page<PaymentSummary> findSummaries(Specification<PaymentEntity> spec, Pageable pageable);
+}
@@ -0,0 +1,109 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.ReasonPayment;
+import com.catamaran.catamaranbackend.dto.PaymentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PaymentSummary> findSummaries(Specification<PaymentEntity> spec, Pageable pageable) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PaymentEntity> payment = query.from(PaymentEntity.class);
+        Join<PaymentEntity, BoatEntity> boat = payment.join("boat", JoinType.LEFT);
+        Join<BoatEntity, UserEntity> owner = boat.join("owner", JoinType.LEFT);
+
+        query.multiselect(
+                payment.get("id"),
+                payment.get("mount"),
+                payment.get("date"),
+                payment.get("status"),
+                payment.get("reason"),
+                payment.get("invoice_url"),
+                boat.get("name"),
+                owner.get("fullName"),
+                cb.functionAggregate("count", Long.class, cb.createWindow(), cb.literal(1)));
+
+        Predicate predicate = spec != null ? spec.toPredicate(payment, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        // id como desempate para que el orden entre páginas sea estable
+        List<Order> orders = new ArrayList<>(toOrders(pageable.getSort(), payment, cb));
+        if (pageable.getSort().getOrderFor("id") == null) {
+            orders.add(cb.asc(payment.get("id")));
+        }
+        query.orderBy(orders);
+
+        var typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Tuple> rows = typedQuery.getResultList();
+        List<PaymentSummary> content = rows.stream()
+                .map(row -> new PaymentSummary(
+                        row.get(0, Long.class),
+                        row.get(1, Double.class),
+                        row.get(2, LocalDateTime.class),
+                        row.get(3, PaymentStatus.class),
+                        row.get(4, ReasonPayment.class),
+                        row.get(5, String.class),
+                        row.get(6, String.class),
+                        row.get(7, String.class)))
+                .toList();
+
+        long total;
+        if (!rows.isEmpty()) {
+            total = rows.get(0).get(8, Long.class);
+        } else if (pageable.isUnpaged() || pageable.getOffset() == 0) {
+            total = 0;
+        } else {
+            // Página fuera de rango: la ventana no devuelve filas, se cuenta aparte
+            total = countMatching(spec);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private long countMatching(Specification<PaymentEntity> spec) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<PaymentEntity> payment = query.from(PaymentEntity.class);
+        query.select(cb.count(payment));
+        Predicate predicate = spec != null ? spec.toPredicate(payment, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
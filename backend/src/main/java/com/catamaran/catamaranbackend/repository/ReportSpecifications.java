@@ -0,0 +1,108 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Filtros de los reportes: los mismos parámetros que los listados (BoatController, PaymentController
+ * y MaintananceController.getAll) más ownerId y, en pagos, un rango from/to (yyyy-MM-dd).
+ * Se traducen a las mismas Specifications, así el filtrado ocurre en SQL.
+ */
+public class ReportSpecifications {
+
+    private static final List<String> BOAT_FILTERS = List.of("search", "type", "status");
+    private static final List<String> PAYMENT_FILTERS = List.of("search", "reason", "month", "status", "ownerId", "from", "to");
+    private static final List<String> MAINTENANCE_FILTERS = List.of("search", "status", "type", "ownerId");
+
+    /**
+     * Deja solo los filtros que entiende el reporte, sin valores vacíos ni "all", ordenados
+     * (forman parte de la clave del caché de reportes).
+     *
+     * @throws IllegalArgumentException si algún valor no es válido
+     */
+    public static Map<String, String> normalize(ReportType type, Map<String, String> filters) {
+        List<String> accepted = switch (type) {
+            case BOATS -> BOAT_FILTERS;
+            case PAYMENTS -> PAYMENT_FILTERS;
+            case MAINTENANCE -> MAINTENANCE_FILTERS;
+            // El libro consolidado siempre trae los tres conjuntos completos
+            case FLEET -> List.of();
+        };
+        Map<String, String> normalized = new TreeMap<>();
+        if (filters != null) {
+            filters.forEach((name, value) -> {
+                if (accepted.contains(name) && value != null && !value.trim().isEmpty() && !"all".equals(value.trim())) {
+                    normalized.put(name, value.trim());
+                }
+            });
+        }
+
+        // Validación temprana: mejor un 400 que un reporte que falla a mitad de camino
+        switch (type) {
+            case BOATS -> forBoats(normalized);
+            case PAYMENTS -> forPayments(normalized);
+            case MAINTENANCE -> forMaintenances(normalized);
+            case FLEET -> { }
+        }
+        return normalized;
+    }
+
+    public static Specification<BoatEntity> forBoats(Map<String, String> filters) {
+        String type = filters.get("type");
+        return Specification.allOf(
+                BoatSpecifications.hasSearchTerm(filters.get("search")),
+                BoatSpecifications.hasType(type != null ? BoatType.valueOf(type.toUpperCase()) : null),
+                BoatSpecifications.hasAvailability(filters.get("status")));
+    }
+
+    public static Specification<PaymentEntity> forPayments(Map<String, String> filters) {
+        Specification<PaymentEntity> spec = Specification.allOf(PaymentSpecification.fromFilters(
+                filters.get("search"), filters.get("reason"), filters.get("month"), filters.get("status")));
+
+        if (filters.containsKey("ownerId")) {
+            spec = spec.and(PaymentSpecification.belongsToOwner(parseId(filters.get("ownerId"))));
+        }
+        if (filters.containsKey("from") || filters.containsKey("to")) {
+            LocalDate from = filters.containsKey("from") ? parseDate(filters.get("from")) : LocalDate.of(1970, 1, 1);
+            LocalDate to = filters.containsKey("to") ? parseDate(filters.get("to")) : LocalDate.of(9999, 12, 31);
+            spec = spec.and(PaymentSpecification.isBetweenDates(from.atStartOfDay(), to.atTime(23, 59, 59)));
+        }
+        return spec;
+    }
+
+    public static Specification<MaintananceEntity> forMaintenances(Map<String, String> filters) {
+        String status = filters.get("status");
+        String type = filters.get("type");
+        Specification<MaintananceEntity> spec = Specification.allOf(MaintananceSpecifications.fromFilters(
+                filters.get("search"),
+                status != null ? MaintananceStatus.valueOf(status.toUpperCase()) : null,
+                type != null ? MaintananceType.valueOf(type.toUpperCase()) : null));
+
+        if (filters.containsKey("ownerId")) {
+            spec = spec.and(MaintananceSpecifications.belongsToOwner(parseId(filters.get("ownerId"))));
+        }
+        return spec;
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida (yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ownerId inválido: " + value);
+        }
+    }
+}
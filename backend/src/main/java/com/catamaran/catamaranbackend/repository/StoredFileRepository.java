@@ -0,0 +1,19 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFileEntity, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFileEntity f WHERE f.hash = :hash")
+    Optional<StoredFileEntity> findForUpdate(@Param("hash") String hash);
+}
@@ -0,0 +1,18 @@
+package com.catamaran.catamaranbackend.repository;
+
+import com.catamaran.catamaranbackend.domain.UploadSessionEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSessionEntity, String> {
+
+    @Query("SELECT u.id FROM UploadSessionEntity u WHERE u.expiresAt < :now ORDER BY u.expiresAt")
+    List<String> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+}
@@ -0,0 +1,159 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.domain.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static com.catamaran.catamaranbackend.domain.AdminRollupEntity.*;
+
+/**
+ * Traduce los insert/update/delete de botes, mantenimientos, pagos y usuarios en deltas de
+ * admin_rollups. Los deltas se acumulan por sesión y se aplican una sola vez, justo antes del
+ * commit y sobre la misma conexión, así el contador se confirma o se revierte con la escritura.
+ * Cubre todos los endpoints (y cascadas) sin tocar cada controlador. También incrementa
+ * la versión de datos de cada tabla (DATA_VERSIONS), que usa el caché de reportes.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminRollupListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // Tablas con versión de datos (bucket de DATA_VERSIONS)
+    private static final Map<Class<?>, String> VERSIONED_TABLES = Map.of(
+            BoatEntity.class, "boats",
+            MaintananceEntity.class, "maintenances",
+            PaymentEntity.class, "payments",
+            UserEntity.class, "users"
+    );
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AdminRollupService adminRollupService;
+
+    private final Map<SharedSessionContractImplementor, Deltas> pending =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        bumpVersion(event.getSession(), event.getPersister());
+        collect(event.getSession(), event.getPersister(), event.getId(), event.getState(), 1);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        bumpVersion(event.getSession(), event.getPersister());
+        // Sin estado previo (update de una entidad detached sin select) no hay delta; lo corrige la reconciliación
+        if (event.getOldState() == null) {
+            return;
+        }
+        collect(event.getSession(), event.getPersister(), event.getId(), event.getOldState(), -1);
+        collect(event.getSession(), event.getPersister(), event.getId(), event.getState(), 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        bumpVersion(event.getSession(), event.getPersister());
+        collect(event.getSession(), event.getPersister(), event.getId(), event.getDeletedState(), -1);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void collect(EventSource session, EntityPersister persister, Object id, Object[] state, int sign) {
+        Class<?> type = persister.getMappedClass();
+        if (type == BoatEntity.class) {
+            BoatType boatType = (BoatType) value(persister, state, "type");
+            deltas(session).add(BOATS_BY_TYPE, boatType != null ? boatType.name() : UNKNOWN, sign);
+            if (value(persister, state, "owner") instanceof UserEntity owner && owner.getId() != null) {
+                deltas(session).ownerBoats.merge(owner.getId(), sign, Integer::sum);
+            }
+        } else if (type == MaintananceEntity.class) {
+            MaintananceStatus status = (MaintananceStatus) value(persister, state, "status");
+            deltas(session).add(MAINTENANCES_BY_STATUS, status != null ? status.name() : UNKNOWN, sign);
+        } else if (type == PaymentEntity.class) {
+            LocalDateTime date = (LocalDateTime) value(persister, state, "date");
+            Double mount = (Double) value(persister, state, "mount");
+            if (value(persister, state, "status") == PaymentStatus.PAGADO && date != null && mount != null) {
+                deltas(session).add(PAID_PAYMENTS_BY_MONTH, YearMonth.from(date).toString(), sign * mount);
+            }
+        } else if (type == UserEntity.class) {
+            if (value(persister, state, "role") == Role.PROPIETARIO) {
+                deltas(session).add(OWNERS, OWNERS_TOTAL, sign);
+                // Alta, baja o cambio de rol: OWNERS_WITH_BOATS solo cuenta propietarios
+                if (id instanceof Long userId) {
+                    deltas(session).ownerRoles.merge(userId, sign, Integer::sum);
+                }
+                if (Boolean.TRUE.equals(value(persister, state, "status"))) {
+                    deltas(session).add(OWNERS, OWNERS_ACTIVE, sign);
+                }
+            }
+        }
+    }
+
+    private void bumpVersion(EventSource session, EntityPersister persister) {
+        String table = VERSIONED_TABLES.get(persister.getMappedClass());
+        if (table != null) {
+            deltas(session).add(DATA_VERSIONS, table, 1);
+        }
+    }
+
+    private static Object value(EntityPersister persister, Object[] state, String property) {
+        int index = Arrays.asList(persister.getPropertyNames()).indexOf(property);
+        return index >= 0 ? state[index] : null;
+    }
+
+    // Primer delta de la transacción: registra los callbacks de fin de transacción de la sesión
+    private Deltas deltas(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+                Deltas deltas = pending.remove(session);
+                if (deltas != null) {
+                    completing.doWork(connection ->
+                            adminRollupService.apply(connection, deltas.amounts, deltas.ownerBoats, deltas.ownerRoles));
+                }
+            });
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) ->
+                    pending.remove(session));
+            return new Deltas();
+        });
+    }
+
+    private static class Deltas {
+        private final Map<AdminRollupEntity.Key, Double> amounts = new HashMap<>();
+        private final Map<Long, Integer> ownerBoats = new HashMap<>();
+        // +1 si el usuario pasó a ser PROPIETARIO en la transacción, -1 si dejó de serlo
+        private final Map<Long, Integer> ownerRoles = new HashMap<>();
+
+        void add(String metric, String bucket, double delta) {
+            amounts.merge(new AdminRollupEntity.Key(metric, bucket), delta, Double::sum);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.AdminRollupEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.domain.MaintananceStatus;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.repository.AdminRollupRepository;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.MaintananceRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static com.catamaran.catamaranbackend.domain.AdminRollupEntity.*;
+
+/**
+ * Contadores del dashboard de administración (tabla admin_rollups).
+ * Las lecturas son O(1): leen unas pocas filas precalculadas. Las escrituras de botes,
+ * mantenimientos, pagos y usuarios los ajustan en la misma transacción (AdminRollupListener)
+ * y {@link #reconcile()} los recalcula periódicamente desde las tablas para corregir desvíos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdminRollupService {
+
+    // Orden de bloqueo de las filas de admin_rollups; lockAll() usa el mismo
+    private static final Comparator<AdminRollupEntity.Key> KEY_ORDER =
+            Comparator.comparing(AdminRollupEntity.Key::getMetric).thenComparing(AdminRollupEntity.Key::getBucket);
+
+    private final AdminRollupRepository adminRollupRepository;
+    private final BoatRepository boatRepository;
+    private final MaintananceRepository maintananceRepository;
+    private final PaymentRepository paymentRepository;
+    private final UserRepositoryJpa userRepository;
+
+    /**
+     * Buckets de una métrica con valor positivo, como conteos.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> counts(String metric) {
+        Map<String, Long> counts = new HashMap<>();
+        for (AdminRollupEntity rollup : adminRollupRepository.findByMetric(metric)) {
+            long count = Math.round(rollup.getAmount());
+            if (count > 0) {
+                counts.put(rollup.getBucket(), count);
+            }
+        }
+        return counts;
+    }
+
+    @Transactional(readOnly = true)
+    public double amount(String metric, String bucket) {
+        return adminRollupRepository.findById(new AdminRollupEntity.Key(metric, bucket))
+                .map(AdminRollupEntity::getAmount)
+                .orElse(0.0);
+    }
+
+    public long count(String metric, String bucket) {
+        return Math.round(amount(metric, bucket));
+    }
+
+    /**
+     * Aplica los incrementos acumulados en una transacción, sobre su misma conexión.
+     * Si algo falla en los contadores se vuelve al savepoint: la escritura del usuario no se pierde
+     * por un contador y la próxima reconciliación corrige el desvío. Las versiones de datos van
+     * aparte (ver {@link #bumpVersions}), porque la reconciliación no las puede reparar.
+     */
+    void apply(Connection connection, Map<AdminRollupEntity.Key, Double> deltas,
+               Map<Long, Integer> ownerBoatDeltas, Map<Long, Integer> ownerRoleDeltas) {
+        TreeMap<AdminRollupEntity.Key, Double> counters = new TreeMap<>(KEY_ORDER);
+        TreeMap<String, Double> versions = new TreeMap<>();
+        deltas.forEach((key, delta) -> {
+            if (DATA_VERSIONS.equals(key.getMetric())) {
+                versions.merge(key.getBucket(), delta, Double::sum);
+            } else {
+                counters.put(key, delta);
+            }
+        });
+        applyCounters(connection, counters, ownerBoatDeltas, ownerRoleDeltas);
+        bumpVersions(connection, versions);
+    }
+
+    /**
+     * Aplica los contadores en orden de (métrica, bucket), el mismo en todas las transacciones, para
+     * que dos que tocan los mismos buckets no se bloqueen en cruz.
+     */
+    private void applyCounters(Connection connection, TreeMap<AdminRollupEntity.Key, Double> deltas,
+                               Map<Long, Integer> ownerBoatDeltas, Map<Long, Integer> ownerRoleDeltas) {
+        Savepoint savepoint = null;
+        try {
+            savepoint = connection.setSavepoint();
+            TreeMap<AdminRollupEntity.Key, Double> all = new TreeMap<>(deltas);
+            Set<Long> owners = new TreeSet<>();
+            ownerBoatDeltas.forEach((id, delta) -> {
+                if (delta != 0) {
+                    owners.add(id);
+                }
+            });
+            ownerRoleDeltas.forEach((id, delta) -> {
+                if (delta != 0) {
+                    owners.add(id);
+                }
+            });
+            for (Long ownerId : owners) {
+                // Estado posterior a la escritura; el previo se deduce de los deltas de la transacción
+                OwnerState after = ownerState(connection, ownerId);
+                long boatsBefore = after.boats() - ownerBoatDeltas.getOrDefault(ownerId, 0);
+                int roleDelta = ownerRoleDeltas.getOrDefault(ownerId, 0);
+                boolean ownerBefore = roleDelta != 0 ? roleDelta < 0 : after.owner();
+                int change = (after.owner() && after.boats() > 0 ? 1 : 0) - (ownerBefore && boatsBefore > 0 ? 1 : 0);
+                if (change != 0) {
+                    all.merge(new AdminRollupEntity.Key(OWNERS, OWNERS_WITH_BOATS), (double) change, Double::sum);
+                }
+            }
+            for (Map.Entry<AdminRollupEntity.Key, Double> delta : all.entrySet()) {
+                if (Math.abs(delta.getValue()) > 0.000001) {
+                    increment(connection, delta.getKey(), delta.getValue());
+                }
+            }
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            log.warn("No se pudieron actualizar los contadores de administración: {}", e.getMessage());
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackError) {
+                    log.warn("No se pudo volver al savepoint de contadores: {}", rollbackError.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Incrementa las versiones de datos que usa el caché de reportes. Una versión perdida dejaría
+     * reportes viejos en el caché, así que no se descarta como un contador: cada tabla (en orden,
+     * para no cruzar bloqueos) tiene su savepoint y un reintento, que cubre la inserción
+     * concurrente de la primera fila; si vuelve a fallar, falla la transacción.
+     */
+    private void bumpVersions(Connection connection, TreeMap<String, Double> versions) {
+        for (Map.Entry<String, Double> version : versions.entrySet()) {
+            AdminRollupEntity.Key key = new AdminRollupEntity.Key(DATA_VERSIONS, version.getKey());
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        increment(connection, key, version.getValue());
+                        connection.releaseSavepoint(savepoint);
+                        break;
+                    } catch (SQLException e) {
+                        connection.rollback(savepoint);
+                        throw e;
+                    }
+                } catch (SQLException e) {
+                    if (attempt >= 2) {
+                        throw new IllegalStateException("No se pudo actualizar la versión de datos de " + version.getKey(), e);
+                    }
+                    log.debug("Reintentando la versión de datos de {}: {}", version.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private record OwnerState(boolean owner, long boats) {}
+
+    // Rol PROPIETARIO y cantidad de botes del usuario; un usuario borrado no tiene botes ni cuenta
+    private OwnerState ownerState(Connection connection, Long userId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT u.role, (SELECT COUNT(*) FROM boats b WHERE b.owner_id = u.id) FROM users u WHERE u.id = ?")) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return new OwnerState(false, 0);
+                }
+                return new OwnerState(Role.PROPIETARIO.name().equals(rs.getString(1)), rs.getLong(2));
+            }
+        }
+    }
+
+    private void increment(Connection connection, AdminRollupEntity.Key key, double delta) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE admin_rollups SET amount = amount + ? WHERE metric = ? AND bucket = ?")) {
+            update.setDouble(1, delta);
+            update.setString(2, key.getMetric());
+            update.setString(3, key.getBucket());
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        // Bucket nuevo (por ejemplo el primer pago de un mes)
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO admin_rollups (metric, bucket, amount) VALUES (?, ?, ?)")) {
+            insert.setString(1, key.getMetric());
+            insert.setString(2, key.getBucket());
+            insert.setDouble(3, delta);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Recalcula todos los contadores desde las tablas con consultas agrupadas.
+     * Primero bloquea las filas existentes: las transacciones que quieran incrementarlas esperan
+     * y aplican su delta sobre el valor ya reconciliado.
+     */
+    @Scheduled(initialDelayString = "${admin.rollups.reconcile-initial-delay:PT0S}",
+               fixedDelayString = "${admin.rollups.reconcile-interval:PT15M}")
+    @Transactional
+    public void reconcile() {
+        Map<AdminRollupEntity.Key, AdminRollupEntity> existing = new HashMap<>();
+        adminRollupRepository.lockAll().forEach(rollup ->
+                existing.put(new AdminRollupEntity.Key(rollup.getMetric(), rollup.getBucket()), rollup));
+
+        Map<AdminRollupEntity.Key, Double> expected = new HashMap<>();
+        for (BoatType type : BoatType.values()) {
+            expected.put(new AdminRollupEntity.Key(BOATS_BY_TYPE, type.name()), 0.0);
+        }
+        boatRepository.countByType().forEach(row -> expected.put(
+                new AdminRollupEntity.Key(BOATS_BY_TYPE, row.type() != null ? row.type().name() : UNKNOWN),
+                row.count().doubleValue()));
+
+        for (MaintananceStatus status : MaintananceStatus.values()) {
+            expected.put(new AdminRollupEntity.Key(MAINTENANCES_BY_STATUS, status.name()), 0.0);
+        }
+        maintananceRepository.countByStatus().forEach(row -> expected.put(
+                new AdminRollupEntity.Key(MAINTENANCES_BY_STATUS, row.status() != null ? row.status().name() : UNKNOWN),
+                row.count().doubleValue()));
+
+        expected.put(new AdminRollupEntity.Key(OWNERS, OWNERS_TOTAL),
+                (double) userRepository.countByRole(Role.PROPIETARIO));
+        expected.put(new AdminRollupEntity.Key(OWNERS, OWNERS_ACTIVE),
+                (double) userRepository.countByRoleAndStatus(Role.PROPIETARIO, true));
+        expected.put(new AdminRollupEntity.Key(OWNERS, OWNERS_WITH_BOATS),
+                (double) boatRepository.countDistinctOwners(Role.PROPIETARIO));
+
+        expected.put(new AdminRollupEntity.Key(PAID_PAYMENTS_BY_MONTH, YearMonth.now().toString()), 0.0);
+        paymentRepository.sumByMonth(PaymentStatus.PAGADO).forEach(row -> expected.put(
+                new AdminRollupEntity.Key(PAID_PAYMENTS_BY_MONTH, YearMonth.of(row.year(), row.month()).toString()),
+                row.amount()));
+
+        // Buckets que ya no tienen filas (p. ej. un tipo sin botes) vuelven a cero.
+        // Las versiones de datos no se derivan de las tablas y quedan como están
+        existing.keySet().stream()
+                .filter(key -> !DATA_VERSIONS.equals(key.getMetric()))
+                .forEach(key -> expected.putIfAbsent(key, 0.0));
+
+        int repaired = 0;
+        for (Map.Entry<AdminRollupEntity.Key, Double> entry : expected.entrySet()) {
+            AdminRollupEntity.Key key = entry.getKey();
+            Optional<AdminRollupEntity> current = Optional.ofNullable(existing.get(key));
+            if (current.isPresent() && Math.abs(current.get().getAmount() - entry.getValue()) < 0.005) {
+                continue;
+            }
+            if (current.isPresent()) {
+                repaired++;
+            }
+            adminRollupRepository.save(new AdminRollupEntity(key.getMetric(), key.getBucket(), entry.getValue()));
+        }
+        if (repaired > 0) {
+            log.warn("Reconciliación de contadores de administración: {} valores corregidos", repaired);
+        }
+    }
+}
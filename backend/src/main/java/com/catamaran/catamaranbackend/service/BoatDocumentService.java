@@ -0,0 +1,43 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.BoatDocumentEntity;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import com.catamaran.catamaranbackend.repository.BoatDocumentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Alta de documentos de embarcaciones a partir de un archivo ya guardado en FileStorageService;
+ * la usan la subida del admin, la del propietario y las subidas reanudables.
+ */
+@Service
+@RequiredArgsConstructor
+public class BoatDocumentService {
+
+    private final BoatDocumentRepository boatDocumentRepository;
+    private final FileStorageService fileStorageService;
+
+    /**
+     * Crea el documento con su URL de descarga. La referencia al archivo pasa al documento; si no
+     * se puede guardar, se libera.
+     */
+    public BoatDocumentEntity addDocument(BoatEntity boat, String documentName, String originalFilename, StoredFileEntity stored) {
+        // Nombre único del documento; el contenido se guarda una sola vez por hash
+        String fileName = "boat_" + boat.getId() + "_doc_" + System.currentTimeMillis() + "_" + originalFilename;
+        BoatDocumentEntity document = BoatDocumentEntity.builder()
+                .name(documentName)
+                .url("/api/v1/boat/documents/" + fileName)
+                .contentType(stored.getContentType())
+                .fileSize(stored.getSize())
+                .fileHash(stored.getHash())
+                .boat(boat)
+                .build();
+        try {
+            return boatDocumentRepository.save(document);
+        } catch (RuntimeException e) {
+            fileStorageService.release(stored.getHash());
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.ExportFormat;
+import com.catamaran.catamaranbackend.domain.MaintananceEntity;
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportaciones completas de los listados en CSV o NDJSON. Cada exportación es una sola consulta
+ * con columnas planas (ids y nombres en lugar de objetos anidados), ordenada por id y leída con un
+ * cursor del servidor; las filas se escriben en la respuesta a medida que llegan, sin juntarlas en
+ * memoria, y la salida se vacía cada exports.flush-rows filas.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${exports.flush-rows:1000}")
+    private int flushRows;
+
+    @Transactional(readOnly = true)
+    public void exportPayments(Specification<PaymentEntity> filters, ExportFormat format, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PaymentEntity> payment = query.from(PaymentEntity.class);
+        Join<PaymentEntity, BoatEntity> boat = payment.join("boat", JoinType.LEFT);
+        Join<BoatEntity, UserEntity> owner = boat.join("owner", JoinType.LEFT);
+        query.multiselect(
+                payment.get("id").alias("id"),
+                payment.get("date").alias("date"),
+                payment.get("mount").alias("amount"),
+                payment.get("reason").alias("reason"),
+                payment.get("status").alias("status"),
+                payment.get("invoice_url").alias("invoiceUrl"),
+                boat.get("id").alias("boatId"),
+                boat.get("name").alias("boatName"),
+                owner.get("id").alias("ownerId"),
+                owner.get("fullName").alias("ownerName"));
+        applyFilters(query, payment, filters, cb);
+        write(query, format, out);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportMaintenances(Specification<MaintananceEntity> filters, ExportFormat format, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MaintananceEntity> maintenance = query.from(MaintananceEntity.class);
+        Join<MaintananceEntity, BoatEntity> boat = maintenance.join("boat", JoinType.LEFT);
+        query.multiselect(
+                maintenance.get("id").alias("id"),
+                boat.get("id").alias("boatId"),
+                boat.get("name").alias("boatName"),
+                maintenance.get("type").alias("type"),
+                maintenance.get("status").alias("status"),
+                maintenance.get("priority").alias("priority"),
+                maintenance.get("dateScheduled").alias("dateScheduled"),
+                maintenance.get("datePerformed").alias("datePerformed"),
+                maintenance.get("cost").alias("cost"),
+                maintenance.get("description").alias("description"));
+        applyFilters(query, maintenance, filters, cb);
+        write(query, format, out);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBoats(Specification<BoatEntity> filters, ExportFormat format, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<BoatEntity> boat = query.from(BoatEntity.class);
+        Join<BoatEntity, UserEntity> owner = boat.join("owner", JoinType.LEFT);
+        query.multiselect(
+                boat.get("id").alias("id"),
+                boat.get("name").alias("name"),
+                boat.get("type").alias("type"),
+                boat.get("model").alias("model"),
+                boat.get("location").alias("location"),
+                boat.get("price").alias("price"),
+                boat.get("balance").alias("balance"),
+                boat.get("available").alias("available"),
+                owner.get("id").alias("ownerId"),
+                owner.get("fullName").alias("ownerName"));
+        applyFilters(query, boat, filters, cb);
+        write(query, format, out);
+    }
+
+    /**
+     * Propietarios con su cantidad de embarcaciones; mismos filtros que AdminController.getUsersWithBoatCounts
+     * (searchPattern es '%term%' en minúsculas).
+     */
+    @Transactional(readOnly = true)
+    public void exportOwners(String searchPattern, Boolean status, ExportFormat format, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<UserEntity> user = query.from(UserEntity.class);
+        Join<UserEntity, BoatEntity> boats = user.join("boats", JoinType.LEFT);
+        query.multiselect(
+                user.get("id").alias("id"),
+                user.get("email").alias("email"),
+                user.get("username").alias("username"),
+                user.get("fullName").alias("fullName"),
+                user.get("phoneNumber").alias("phoneNumber"),
+                user.get("status").alias("status"),
+                user.get("uniqueId").alias("uniqueId"),
+                cb.count(boats.get("id")).alias("boatsCount"));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(user.get("role"), Role.PROPIETARIO));
+        if (searchPattern != null) {
+            predicates.add(cb.or(
+                    cb.like(cb.lower(user.get("fullName")), searchPattern),
+                    cb.like(cb.lower(user.get("email")), searchPattern),
+                    cb.like(cb.lower(user.get("username")), searchPattern)));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(user.get("status"), status));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.groupBy(user.get("id"), user.get("email"), user.get("username"), user.get("fullName"),
+                user.get("phoneNumber"), user.get("status"), user.get("uniqueId"));
+        query.orderBy(cb.asc(user.get("id")));
+        write(query, format, out);
+    }
+
+    private <T> void applyFilters(CriteriaQuery<Tuple> query, Root<T> root, Specification<T> filters, CriteriaBuilder cb) {
+        Predicate predicate = filters != null ? filters.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+    }
+
+    private void write(CriteriaQuery<Tuple> query, ExportFormat format, OutputStream out) throws IOException {
+        List<String> columns = query.getSelection().getCompoundSelectionItems().stream()
+                .map(Selection::getAlias)
+                .toList();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Tuple> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<Tuple> iterator = rows.iterator();
+            if (format == ExportFormat.CSV) {
+                writeCsv(columns, iterator, writer);
+            } else {
+                writeNdjson(columns, iterator, writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(List<String> columns, Iterator<Tuple> rows, Writer writer) throws IOException {
+        writeCsvLine(columns.toArray(), writer);
+        long count = 0;
+        while (rows.hasNext()) {
+            writeCsvLine(rows.next().toArray(), writer);
+            if (++count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    // RFC 4180: entre comillas solo si hace falta, comillas internas duplicadas, fin de línea CRLF
+    private void writeCsvLine(Object[] values, Writer writer) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = csvValue(values[i]);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // Números sin notación científica (3.5E8 rompe los scripts contables) y fechas en ISO-8601
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Double number) {
+            return BigDecimal.valueOf(number).toPlainString();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime);
+        }
+        if (value instanceof LocalDate date) {
+            return DateTimeFormatter.ISO_LOCAL_DATE.format(date);
+        }
+        return value.toString();
+    }
+
+    // Un objeto JSON por línea; las fechas salen en ISO-8601 con el ObjectMapper de la aplicación
+    private void writeNdjson(List<String> columns, Iterator<Tuple> rows, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        // Sin el espacio que Jackson pone entre valores de primer nivel: cada línea empieza con su objeto
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        while (rows.hasNext()) {
+            Tuple row = rows.next();
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                generator.writeFieldName(columns.get(i));
+                generator.writeObject(row.get(i));
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+            if (++count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+        generator.close();
+    }
+}
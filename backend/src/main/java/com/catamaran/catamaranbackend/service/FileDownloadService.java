@@ -0,0 +1,327 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Descarga de archivos subidos (documentos de embarcaciones y recibos de pago).
+ * <ul>
+ *   <li>ETag fuerte y Last-Modified, con 304 para If-None-Match / If-Modified-Since: los archivos
+ *       no se reescriben (cada subida tiene su propio nombre), así que tamaño y fecha los identifican.</li>
+ *   <li>Range con uno o varios rangos (multipart/byteranges) e If-Range, para retomar una descarga cortada.</li>
+ *   <li>Con un solo rango (o el archivo completo) el cuerpo se delega en el sendfile de Tomcat, que
+ *       lo envía sin pasar por el heap. Si sendfile no está disponible, y siempre con varios rangos,
+ *       se copia con FileChannel.transferTo hacia el stream de la respuesta: pasa por buffers, pero
+ *       de a bloques y sin cargar el archivo entero en memoria.</li>
+ * </ul>
+ * El tipo de contenido viene de la base (guardado al subir); para registros anteriores se deduce
+ * de la extensión, sin leer el archivo. Los archivos del almacén por contenido (FileStorageService)
+ * usan su hash como ETag.
+ */
+@Service
+public class FileDownloadService {
+
+    // Atributos de Tomcat para servir el cuerpo con sendfile (org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Más rangos que esto se ignoran y se envía el archivo completo
+    private static final int MAX_RANGES = 16;
+
+    /**
+     * Escribe un archivo del almacén por contenido. El ETag es su SHA-256. Si está guardado con
+     * gzip, se envía comprimido (Content-Encoding: gzip, con rangos sobre los bytes comprimidos)
+     * a los clientes que lo aceptan, y descomprimido al vuelo a los demás.
+     */
+    public void serve(StoredFileEntity stored, Path file, String downloadName,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long lastModified = stored.getCreatedAt().toEpochMilli();
+        String type = stored.getContentType() != null ? stored.getContentType() : contentTypeOf(null, downloadName);
+        if (!stored.isCompressed()) {
+            serve(file, stored.getSize(), lastModified, "\"" + stored.getHash() + "\"", type, downloadName, request, response);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            serve(file, stored.getStoredSize(), lastModified, "\"" + stored.getHash() + "-gzip\"", type, downloadName, request, response);
+            return;
+        }
+
+        // Descomprimido: sin rangos, el cuerpo pasa por un buffer
+        if (notModified(stored.getHash(), lastModified, request, response)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(downloadName));
+        response.setContentType(type);
+        response.setContentLengthLong(stored.getSize());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024)) {
+            in.transferTo(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Escribe el archivo en la respuesta, completo (200), por rangos (206), sin cuerpo (304) o
+     * con 416 si ningún rango pedido cae dentro del archivo. Responde 404 si el archivo no existe.
+     *
+     * @param contentType tipo guardado al subir; null para deducirlo del nombre
+     */
+    public void serve(Path file, String contentType, String downloadName,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        String type = contentType != null ? contentType : contentTypeOf(null, downloadName);
+        serve(file, size, lastModified, etag, type, downloadName, request, response);
+    }
+
+    private void serve(Path file, long size, long lastModified, String etag, String type, String downloadName,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (notModified(etag, lastModified, request, response)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(downloadName));
+
+        List<long[]> ranges = rangesToServe(request, size, etag, lastModified);
+        if (ranges == null) {
+            response.setContentType(type);
+            sendBody(file, 0, size, request, response);
+            return;
+        }
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setContentType(type);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+            sendBody(file, range[0], range[1] + 1, request, response);
+        } else {
+            sendMultipart(file, type, size, ranges, request, response);
+        }
+    }
+
+    private boolean notModified(String etag, long lastModified, HttpServletRequest request, HttpServletResponse response) {
+        // Sin esto Spring Security pone no-store y el navegador nunca revalida con el ETag;
+        // private porque son archivos de usuarios autenticados
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        // Pone ETag y Last-Modified, y responde 304 (o 412) según los encabezados condicionales
+        return new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+
+    private static String contentDisposition(String downloadName) {
+        return ContentDisposition.attachment().filename(downloadName, StandardCharsets.UTF_8).build().toString();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values != null && values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    // gzip;q=0 significa que no lo acepta
+                    return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return null para enviar el archivo completo (sin Range, If-Range que no coincide o Range
+     *         que no se entiende), lista vacía si ningún rango es satisfacible, o los rangos
+     *         [inicio, fin] inclusivos
+     */
+    private List<long[]> rangesToServe(HttpServletRequest request, long size, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !"GET".equals(request.getMethod())) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            // Otro ETag, o una fecha anterior a la última modificación: el cliente tiene otra versión
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return null;
+            }
+            try {
+                // Las fechas HTTP tienen resolución de segundos
+                if (lastModified / 1000 > request.getDateHeader(HttpHeaders.IF_RANGE) / 1000) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        for (String spec : header.substring("bytes=".length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            long start;
+            long end;
+            try {
+                if (dash == 0) {
+                    // "-N": los últimos N bytes
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix == 0) {
+                        continue;
+                    }
+                    start = Math.max(0, size - suffix);
+                    end = size - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    // "N-": desde N hasta el final
+                    long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                    if (last < start) {
+                        return null;
+                    }
+                    end = Math.min(last, size - 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (start < size) {
+                ranges.add(new long[]{start, end});
+            }
+        }
+        return ranges.size() > MAX_RANGES ? null : ranges;
+    }
+
+    private void sendBody(Path file, long start, long end, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // Tomcat envía el archivo con sendfile después de que el controlador termina
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end);
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, end, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    private void sendMultipart(Path file, String type, long size, List<long[]> ranges,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        long length = 0;
+        for (long[] range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + type + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range[0] + "-" + range[1] + "/" + size + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            length += header.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        length += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                transfer(channel, ranges.get(i)[0], ranges.get(i)[1] + 1, target);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    private static void transfer(FileChannel channel, long start, long end, WritableByteChannel target) throws IOException {
+        long position = start;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                // El archivo se acortó mientras se enviaba
+                throw new IOException("El archivo terminó antes de lo esperado en la posición " + position);
+            }
+            position += sent;
+        }
+    }
+
+    /**
+     * Tipo de contenido a guardar al subir: el que declaró el cliente o, si no es útil, el que
+     * corresponde a la extensión.
+     */
+    public static String contentTypeOf(String declared, String filename) {
+        if (declared != null && !declared.isBlank() && !MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(declared)) {
+            return declared;
+        }
+        return MediaTypeFactory.getMediaType(filename != null ? filename : "")
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+}
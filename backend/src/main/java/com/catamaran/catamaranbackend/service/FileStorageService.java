@@ -0,0 +1,310 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import com.catamaran.catamaranbackend.repository.StoredFileRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacén de archivos subidos direccionado por contenido. Cada subida se escribe a un temporal
+ * calculando su SHA-256 al mismo tiempo y queda en storage.dir/ab/cd/abcd... (dos niveles de 256
+ * directorios, así ninguno crece demasiado). Si el contenido ya estaba guardado no se escribe otra
+ * copia: solo se suma una referencia en stored_files. Los tipos de texto (storage.compress) se
+ * guardan comprimidos con gzip; FileDownloadService los sirve tal cual o descomprimidos según el cliente.
+ * <p>
+ * Guardar y liberar un mismo hash se serializan con un candado por franja y con el bloqueo de su
+ * fila, para que un archivo no se borre mientras otra subida lo está reutilizando. El candado solo
+ * vale dentro de esta instancia, así que la última liberación aparta el archivo antes de confirmar
+ * el borrado de la fila, mientras todavía la tiene bloqueada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileStorageService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "application/json", "application/xml", "application/rtf", "image/svg+xml", "image/bmp");
+
+    private final StoredFileRepository storedFileRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${storage.dir:${user.dir}/uploads/blobs}")
+    private String storageDir;
+
+    @Value("${storage.compress:true}")
+    private boolean compress;
+
+    private Path root;
+    private Path tempDir;
+    private Path partialDir;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(storageDir).toAbsolutePath().normalize();
+        // El temporal en el mismo disco que los archivos: el paso final es un rename atómico
+        tempDir = root.resolve("tmp");
+        Files.createDirectories(tempDir);
+        try (Stream<Path> leftovers = Files.list(tempDir)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+        // Subidas reanudables en curso: sobreviven a un reinicio, las vencidas las borra ResumableUploadService
+        partialDir = root.resolve("partial");
+        Files.createDirectories(partialDir);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Guarda el contenido y suma una referencia. Quien lo llama guarda el hash en su entidad;
+     * si no llega a guardarla debe llamar a {@link #release(String)}.
+     *
+     * @param contentType tipo declarado por el cliente (se completa por extensión si falta)
+     */
+    public StoredFileEntity store(InputStream content, String filename, String contentType) throws IOException {
+        String type = FileDownloadService.contentTypeOf(contentType, filename);
+        boolean gzip = compress && isCompressible(type);
+
+        Path temp = tempDir.resolve(UUID.randomUUID() + ".part");
+        MessageDigest digest = sha256();
+        long size = 0;
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 OutputStream out = gzip ? new GZIPOutputStream(file, 64 * 1024) : file) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            long storedSize = Files.size(temp);
+            long originalSize = size;
+
+            return retainLocked(hash, temp, originalSize, storedSize, gzip, type);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Como {@link #store}, pero para un archivo ya escrito en {@link #partialFile} cuyo hash se
+     * calculó mientras llegaba: se mueve a su lugar sin copiarlo. Los tipos que se guardan
+     * comprimidos sí se copian, comprimiéndolos. Si se guarda, el archivo de origen deja de existir;
+     * si falla, queda como estaba para reintentar.
+     */
+    public StoredFileEntity adopt(Path file, String hash, String filename, String contentType) throws IOException {
+        String type = FileDownloadService.contentTypeOf(contentType, filename);
+        StoredFileEntity stored;
+        if (compress && isCompressible(type)) {
+            try (InputStream content = Files.newInputStream(file)) {
+                stored = store(content, filename, type);
+            }
+        } else {
+            long size = Files.size(file);
+            stored = retainLocked(hash, file, size, size, false, type);
+        }
+        // Si el contenido ya existía el archivo no se movió
+        deleteQuietly(file);
+        return stored;
+    }
+
+    /**
+     * Archivo donde se escribe una subida reanudable, en el mismo disco que el almacén.
+     */
+    public Path partialFile(String uploadId) {
+        return partialDir.resolve(uploadId + ".upload");
+    }
+
+    /**
+     * Resta una referencia; en la última se borran el registro y el archivo. Dentro de una
+     * transacción se aplica recién cuando confirma, así un borrado que se revierte no pierde el archivo.
+     */
+    public void release(String hash) {
+        if (hash == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(hash);
+                }
+            });
+        } else {
+            releaseNow(hash);
+        }
+    }
+
+    public Optional<StoredFileEntity> find(String hash) {
+        return hash != null ? storedFileRepository.findById(hash) : Optional.empty();
+    }
+
+    public Path pathOf(StoredFileEntity file) {
+        String hash = file.getHash();
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4))
+                .resolve(file.isCompressed() ? hash + ".gz" : hash);
+    }
+
+    private StoredFileEntity retainLocked(String hash, Path temp, long size, long storedSize, boolean gzip, String type) {
+        synchronized (lockFor(hash)) {
+            try {
+                return retain(hash, temp, size, storedSize, gzip, type);
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia insertó el mismo hash al mismo tiempo: ahora existe y se suma la referencia
+                return retain(hash, temp, size, storedSize, gzip, type);
+            }
+        }
+    }
+
+    private StoredFileEntity retain(String hash, Path temp, long size, long storedSize, boolean gzip, String type) {
+        return newTransaction().execute(status -> {
+            Optional<StoredFileEntity> existing = storedFileRepository.findForUpdate(hash);
+            if (existing.isPresent()) {
+                StoredFileEntity file = existing.get();
+                file.setRefCount(file.getRefCount() + 1);
+                log.debug("Archivo {} reutilizado ({} referencias)", hash, file.getRefCount());
+                return file;
+            }
+            StoredFileEntity file = StoredFileEntity.builder()
+                    .hash(hash)
+                    .size(size)
+                    .storedSize(storedSize)
+                    .compressed(gzip)
+                    .contentType(type)
+                    .refCount(1)
+                    .createdAt(Instant.now())
+                    .build();
+            try {
+                Path target = pathOf(file);
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo guardar el archivo " + hash, e);
+            }
+            storedFileRepository.saveAndFlush(file);
+            return file;
+        });
+    }
+
+    private void releaseNow(String hash) {
+        synchronized (lockFor(hash)) {
+            Path[] buried = new Path[2];
+            try {
+                newTransaction().executeWithoutResult(status -> {
+                    Optional<StoredFileEntity> existing = storedFileRepository.findForUpdate(hash);
+                    if (existing.isEmpty()) {
+                        return;
+                    }
+                    StoredFileEntity file = existing.get();
+                    if (file.getRefCount() > 1) {
+                        file.setRefCount(file.getRefCount() - 1);
+                        return;
+                    }
+                    // El archivo se aparta con la fila todavía bloqueada: otra instancia que guarde el mismo
+                    // contenido espera este bloqueo, y el archivo que mueva después ya no es el que se borra
+                    buried[0] = pathOf(file);
+                    buried[1] = bury(buried[0]);
+                    storedFileRepository.delete(file);
+                    storedFileRepository.flush();
+                });
+            } catch (RuntimeException e) {
+                if (buried[1] != null) {
+                    unbury(buried[1], buried[0]);
+                }
+                throw e;
+            }
+            if (buried[1] != null) {
+                deleteQuietly(buried[1]);
+            }
+        }
+    }
+
+    // Renombra el archivo a <archivo>.deleted en su mismo directorio
+    private Path bury(Path path) {
+        Path tombstone = path.resolveSibling(path.getFileName() + ".deleted");
+        try {
+            Files.move(path, tombstone, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return tombstone;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo apartar el archivo " + path, e);
+        }
+    }
+
+    // La transacción no confirmó: la fila sigue y el archivo vuelve a su lugar
+    private void unbury(Path tombstone, Path path) {
+        try {
+            Files.move(tombstone, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("No se pudo restaurar el archivo {} desde {}: {}", path, tombstone, e.getMessage());
+        }
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static boolean isCompressible(String contentType) {
+        String type = contentType.toLowerCase();
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters).trim();
+        }
+        return type.startsWith("text/") || COMPRESSIBLE_TYPES.contains(type);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el archivo {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.service.ReportService.ExcelStyles;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Libro de cierre de mes: embarcaciones, pagos y mantenimientos en tres hojas de un mismo archivo.
+ * <p>
+ * En PostgreSQL las tres hojas se llenan en paralelo, cada una con su conexión, y las tres leen
+ * el mismo snapshot: una transacción REPEATABLE READ lo exporta (pg_export_snapshot) y las demás
+ * lo importan (SET TRANSACTION SNAPSHOT). La demora queda cerca de la hoja más lenta.
+ * En otras bases (H2 en tests) las hojas se llenan una tras otra dentro de una sola transacción.
+ * <p>
+ * Cada libro en paralelo usa cuatro conexiones a la vez (la que exporta el snapshot y una por
+ * hoja), así que los libros simultáneos se limitan (reports.fleet.max-concurrent; 0 = los que
+ * entran en la mitad del pool de Hikari). El permiso se toma antes de pedir la primera conexión: un
+ * libro nunca queda con una conexión esperando las que tiene otro.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FleetWorkbookService {
+
+    private static final int SHEETS = 3;
+
+    private final ReportService reportService;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    @Value("${reports.fleet.max-concurrent:0}")
+    private int maxConcurrent;
+
+    @Value("${reports.fleet.acquire-timeout:PT2M}")
+    private Duration acquireTimeout;
+
+    private ExecutorService executor;
+    private Semaphore builds;
+    private boolean snapshotsSupported;
+
+    @PostConstruct
+    void start() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        snapshotsSupported = "PostgreSQL".equalsIgnoreCase(product);
+
+        int concurrent = maxConcurrent > 0 ? maxConcurrent : defaultConcurrency();
+        builds = new Semaphore(concurrent, true);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(SHEETS * concurrent, runnable -> {
+            Thread thread = new Thread(runnable, "fleet-workbook-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = reportService.newStreamingWorkbook();
+        try {
+            // Hojas y estilos se crean aquí; cada worker escribe solo en su hoja
+            ExcelStyles styles = ExcelStyles.of(workbook);
+            Sheet boats = workbook.createSheet("Embarcaciones");
+            Sheet payments = workbook.createSheet("Pagos");
+            Sheet maintenances = workbook.createSheet("Mantenimientos");
+
+            List<Runnable> fills = List.of(
+                    () -> reportService.fillBoatsSheet(boats, styles, null),
+                    () -> reportService.fillPaymentsSheet(payments, styles, null),
+                    () -> reportService.fillMaintenanceSheet(maintenances, styles, null));
+
+            TransactionTemplate snapshot = snapshotTransaction();
+            if (snapshotsSupported) {
+                acquireBuild();
+                try {
+                    snapshot.executeWithoutResult(status -> {
+                        String snapshotId = jdbcTemplate.queryForObject("SELECT pg_export_snapshot()", String.class);
+                        // El snapshot exportado vale mientras esta transacción siga abierta
+                        List<Future<?>> sheets = new ArrayList<>();
+                        fills.forEach(fill -> sheets.add(executor.submit(() -> fillInSnapshot(snapshotId, fill))));
+                        awaitAll(sheets);
+                    });
+                } finally {
+                    builds.release();
+                }
+            } else {
+                snapshot.executeWithoutResult(status -> fills.forEach(Runnable::run));
+            }
+
+            // Las conexiones ya se liberaron; solo queda armar el archivo desde los temporales de SXSSF
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void acquireBuild() {
+        try {
+            if (!builds.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Demasiados libros consolidados en curso, intente nuevamente");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación del libro consolidado interrumpida", e);
+        }
+    }
+
+    // Hasta la mitad del pool para los libros; el resto queda para las demás solicitudes
+    private int defaultConcurrency() {
+        int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        return Math.max(1, poolSize / 2 / (SHEETS + 1));
+    }
+
+    private void fillInSnapshot(String snapshotId, Runnable fill) {
+        snapshotTransaction().executeWithoutResult(status -> {
+            // Tiene que ser la primera sentencia de la transacción
+            jdbcTemplate.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+            fill.run();
+        });
+    }
+
+    private TransactionTemplate snapshotTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private void awaitAll(List<Future<?>> sheets) {
+        try {
+            for (Future<?> sheet : sheets) {
+                sheet.get();
+            }
+        } catch (ExecutionException e) {
+            sheets.forEach(sheet -> sheet.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Falló una hoja del libro consolidado", e.getCause());
+        } catch (InterruptedException | CancellationException e) {
+            sheets.forEach(sheet -> sheet.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación del libro consolidado interrumpida", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.dto.KeysetCursor;
+import com.catamaran.catamaranbackend.repository.KeysetSpecifications;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Paginación keyset (seek) para los listados grandes: cada página se pide con el cursor
+ * (fecha, id) de la última fila de la anterior, así el costo no crece con la profundidad.
+ * El total es opcional: exacto con COUNT(*) o estimado con las estadísticas del planner.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KeysetPaginationService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    public enum CountMode {
+        NONE, EXACT, ESTIMATE;
+
+        public static CountMode from(String value) {
+            return value == null || value.isBlank() ? NONE : valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Orden keyset de un listado: columna de fecha + id como desempate.
+     * La tabla se usa solo para la estimación del total.
+     */
+    public record KeysetOrder<T>(String table,
+                                 String dateAttribute,
+                                 Function<T, LocalDateTime> dateOf,
+                                 Function<T, Long> idOf,
+                                 Sort.Direction direction) {
+
+        Sort sort() {
+            return Sort.by(direction, dateAttribute, "id");
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * @param filters filtros del listado, null si no hay ninguno
+     * @param cursor  cursor de la página anterior; vacío para la primera página
+     * @param count   none (por defecto), exact o estimate
+     * @throws IllegalArgumentException si el cursor o el modo de conteo no son válidos
+     */
+    @Transactional(readOnly = true)
+    public <T> Map<String, Object> page(JpaSpecificationExecutor<T> repository,
+                                        Specification<T> filters,
+                                        KeysetOrder<T> order,
+                                        String cursor,
+                                        int size,
+                                        String count) {
+        CountMode countMode = CountMode.from(count);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Specification<T> seek = KeysetSpecifications.after(after, order.dateAttribute(), order.direction());
+        Specification<T> spec = filters != null ? filters.and(seek) : seek;
+
+        // Una fila extra indica si hay página siguiente sin necesidad de contar
+        List<T> rows = repository.findBy(spec, query -> query.sortBy(order.sort()).limit(limit + 1).all());
+        boolean hasNext = rows.size() > limit;
+        List<T> content = hasNext ? rows.subList(0, limit) : rows;
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", content);
+        response.put("size", limit);
+        response.put("hasNext", hasNext);
+        if (hasNext) {
+            T last = content.get(content.size() - 1);
+            response.put("nextCursor", new KeysetCursor(order.dateOf().apply(last), order.idOf().apply(last)).encode());
+        } else {
+            response.put("nextCursor", null);
+        }
+
+        switch (countMode) {
+            case EXACT -> {
+                response.put("totalElements", repository.count(filters));
+                response.put("totalEstimated", false);
+            }
+            case ESTIMATE -> {
+                Long estimate = filters == null ? estimateRows(order.table()) : null;
+                // Con filtros (o sin estadísticas) el planner no da un número útil; se cuenta
+                response.put("totalElements", estimate != null ? estimate : repository.count(filters));
+                response.put("totalEstimated", estimate != null);
+            }
+            case NONE -> { }
+        }
+        return response;
+    }
+
+    // reltuples de pg_class: lo actualizan ANALYZE/autovacuum, -1 si la tabla nunca se analizó
+    private Long estimateRows(String table) {
+        if (!isPostgres()) {
+            return null;
+        }
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+        return estimate != null && estimate >= 0 ? estimate : null;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
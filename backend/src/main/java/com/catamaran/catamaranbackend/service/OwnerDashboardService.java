@@ -0,0 +1,165 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import com.catamaran.catamaranbackend.domain.*;
+import com.catamaran.catamaranbackend.dto.MaintenanceStatusCount;
+import com.catamaran.catamaranbackend.dto.PaymentTotals;
+import com.catamaran.catamaranbackend.repository.BoatDocumentRepository;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.MaintananceRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Arma el dashboard del propietario a partir de consultas agregadas.
+ * Las métricas salen de conteos y sumas agrupadas en SQL y las listas están
+ * acotadas; el historial completo se consulta paginado en sus propios endpoints.
+ */
+@Service
+@RequiredArgsConstructor
+public class OwnerDashboardService {
+
+    private static final int UPCOMING_MAINTENANCES_LIMIT = 5;
+    private static final int RECENT_MAINTENANCES_LIMIT = 10;
+    private static final int PENDING_PAYMENTS_LIMIT = 10;
+    private static final int UPCOMING_WINDOW_DAYS = 30;
+
+    private final BoatRepository boatRepository;
+    private final BoatDocumentRepository boatDocumentRepository;
+    private final MaintananceRepository maintananceRepository;
+    private final PaymentRepository paymentRepository;
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDashboard(UserPrincipal owner) {
+        Long ownerId = owner.id();
+        Map<String, Object> response = new HashMap<>();
+
+        // User info
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("fullName", owner.fullName() != null ? owner.fullName() : owner.username());
+        response.put("user", userInfo);
+
+        // Metrics
+        Map<MaintananceStatus, Long> maintenancesByStatus = new EnumMap<>(MaintananceStatus.class);
+        for (MaintenanceStatusCount row : maintananceRepository.countByStatusForOwner(ownerId)) {
+            if (row.status() != null) {
+                maintenancesByStatus.put(row.status(), row.count());
+            }
+        }
+        PaymentTotals pending = paymentRepository.totalsForOwner(ownerId, PaymentStatus.POR_PAGAR);
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("totalBoats", boatRepository.countByOwnerId(ownerId));
+        metrics.put("totalDocuments", boatDocumentRepository.countByBoatOwnerId(ownerId));
+        metrics.put("pendingMaintenances",
+                maintenancesByStatus.getOrDefault(MaintananceStatus.PROGRAMADO, 0L)
+                        + maintenancesByStatus.getOrDefault(MaintananceStatus.EN_PROCESO, 0L));
+        metrics.put("completedMaintenances", maintenancesByStatus.getOrDefault(MaintananceStatus.COMPLETADO, 0L));
+        metrics.put("pendingPayments", pending.count());
+        metrics.put("totalPendingAmount", pending.amount());
+        response.put("metrics", metrics);
+
+        // Boats data
+        response.put("boats", describeBoats(boatRepository.findByOwnerId(ownerId)));
+
+        // Upcoming maintenances (next 30 days)
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> upcomingMaintenances = maintananceRepository.findUpcomingForOwner(
+                        ownerId,
+                        List.of(MaintananceStatus.PROGRAMADO, MaintananceStatus.EN_PROCESO),
+                        now,
+                        now.plusDays(UPCOMING_WINDOW_DAYS),
+                        PageRequest.of(0, UPCOMING_MAINTENANCES_LIMIT))
+                .stream()
+                .map(this::toMaintenanceData)
+                .collect(Collectors.toList());
+        response.put("upcomingMaintenances", upcomingMaintenances);
+
+        // Most recent maintenances; the full history is paged by /owner/maintenances/{userId}
+        List<Map<String, Object>> recentMaintenances = maintananceRepository
+                .findRecentForOwner(ownerId, PageRequest.of(0, RECENT_MAINTENANCES_LIMIT))
+                .stream()
+                .map(this::toMaintenanceData)
+                .collect(Collectors.toList());
+        response.put("allMaintenances", recentMaintenances);
+
+        // Most recent pending payments; the full history is paged by /owner/payments/{userId}/history
+        List<Map<String, Object>> pendingPayments = paymentRepository.findByBoatOwnerIdAndStatus(
+                        ownerId,
+                        PaymentStatus.POR_PAGAR,
+                        PageRequest.of(0, PENDING_PAYMENTS_LIMIT, Sort.by("date").descending()))
+                .stream()
+                .map(this::toPaymentData)
+                .collect(Collectors.toList());
+        response.put("pendingPayments", pendingPayments);
+
+        return response;
+    }
+
+    /**
+     * Datos de cada bote con su deuda de cuotas y de mantenimientos,
+     * calculadas con dos consultas agrupadas para todos los botes recibidos.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> describeBoats(List<BoatEntity> boats) {
+        List<Long> boatIds = boats.stream().map(BoatEntity::getId).collect(Collectors.toList());
+        Map<Long, Double> maintenanceDebts = new HashMap<>();
+        Map<Long, Double> boatDebts = new HashMap<>();
+        if (!boatIds.isEmpty()) {
+            maintananceRepository.sumUnpaidCostByBoatIds(boatIds, PaymentStatus.PAGADO)
+                    .forEach(debt -> maintenanceDebts.put(debt.boatId(), debt.amount()));
+            paymentRepository.sumByBoatIds(boatIds, ReasonPayment.PAGO, PaymentStatus.POR_PAGAR)
+                    .forEach(debt -> boatDebts.put(debt.boatId(), debt.amount()));
+        }
+
+        return boats.stream()
+                .map(boat -> {
+                    Map<String, Object> boatData = new HashMap<>();
+                    boatData.put("id", boat.getId());
+                    boatData.put("name", boat.getName());
+                    boatData.put("model", boat.getModel());
+                    boatData.put("type", boat.getType() != null ? boat.getType().name() : null);
+                    boatData.put("location", boat.getLocation());
+                    boatData.put("price", boat.getPrice());
+                    boatData.put("balance", boat.getBalance());
+                    boatData.put("maintenanceDebt", maintenanceDebts.getOrDefault(boat.getId(), 0.0));
+                    boatData.put("boatDebt", boatDebts.getOrDefault(boat.getId(), 0.0));
+                    return boatData;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> toPaymentData(PaymentEntity payment) {
+        Map<String, Object> paymentData = new HashMap<>();
+        paymentData.put("id", payment.getId());
+        paymentData.put("boatName", payment.getBoat() != null ? payment.getBoat().getName() : "N/A");
+        paymentData.put("amount", payment.getMount());
+        paymentData.put("date", payment.getDate() != null ? payment.getDate().toString() : null);
+        paymentData.put("reason", payment.getReason() != null ? payment.getReason().name() : null);
+        paymentData.put("status", payment.getStatus() != null ? payment.getStatus().name() : null);
+        paymentData.put("invoiceUrl", payment.getInvoice_url());
+        return paymentData;
+    }
+
+    private Map<String, Object> toMaintenanceData(MaintananceEntity m) {
+        Map<String, Object> maintData = new HashMap<>();
+        maintData.put("id", m.getId());
+        maintData.put("boatName", m.getBoat() != null ? m.getBoat().getName() : null);
+        maintData.put("description", m.getDescription());
+        maintData.put("scheduledDate", m.getDateScheduled() != null ? m.getDateScheduled().toString() : null);
+        maintData.put("performedDate", m.getDatePerformed() != null ? m.getDatePerformed().toString() : null);
+        maintData.put("priority", m.getPriority() != null ? m.getPriority().name() : null);
+        maintData.put("type", m.getType() != null ? m.getType().name() : null);
+        maintData.put("status", m.getStatus() != null ? m.getStatus().name() : null);
+        maintData.put("cost", m.getCost());
+        return maintData;
+    }
+}
@@ -0,0 +1,65 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.ReasonPayment;
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Registro de recibos de pago. Marcar la cuota como pagada y sumar su monto al saldo del bote
+ * ocurren en la misma transacción: la versión del pago evita que dos subidas concurrentes
+ * cuenten la misma cuota y el saldo se actualiza con un UPDATE atómico.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentReceiptService {
+
+    private final PaymentRepository paymentRepository;
+    private final BoatRepository boatRepository;
+    private final FileStorageService fileStorageService;
+
+    /**
+     * Asocia el recibo al pago y lo marca PAGADO. Solo la primera vez que la cuota pasa a
+     * PAGADO se suma al saldo; volver a subir un recibo solo reemplaza el archivo (y libera la
+     * referencia al anterior).
+     *
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException si otra
+     *         transacción modificó el pago al mismo tiempo (no se suma nada al saldo)
+     */
+    @Transactional
+    public Optional<PaymentEntity> registerReceipt(Long paymentId, String fileName, StoredFileEntity receipt) {
+        Optional<PaymentEntity> paymentOpt = paymentRepository.findById(paymentId);
+        if (paymentOpt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        PaymentEntity payment = paymentOpt.get();
+        boolean newlyPaid = payment.getStatus() != PaymentStatus.PAGADO;
+        String previousReceipt = payment.getInvoiceHash();
+        payment.setInvoice_url(fileName);
+        payment.setInvoiceContentType(receipt.getContentType());
+        payment.setInvoiceSize(receipt.getSize());
+        payment.setInvoiceHash(receipt.getHash());
+        payment.setStatus(PaymentStatus.PAGADO);
+
+        // El chequeo de versión va primero: si pierde la carrera, no llega a tocar el saldo
+        paymentRepository.saveAndFlush(payment);
+        // El recibo reemplazado se libera cuando la transacción confirma
+        fileStorageService.release(previousReceipt);
+
+        if (newlyPaid && payment.getReason() == ReasonPayment.PAGO
+                && payment.getBoat() != null && payment.getMount() != null) {
+            boatRepository.addToBalance(payment.getBoat().getId(), payment.getMount());
+            // addToBalance limpia el contexto; se relee para devolver el saldo actualizado
+            return paymentRepository.findById(paymentId);
+        }
+        return Optional.of(payment);
+    }
+}
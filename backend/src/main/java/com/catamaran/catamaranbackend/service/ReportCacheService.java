@@ -0,0 +1,241 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.AdminRollupEntity;
+import com.catamaran.catamaranbackend.domain.ReportFormat;
+import com.catamaran.catamaranbackend.domain.ReportType;
+import com.catamaran.catamaranbackend.repository.AdminRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Caché en disco de reportes generados. La clave combina tipo, formato, filtros y la versión de
+ * datos de las tablas que lee el reporte (DATA_VERSIONS de admin_rollups, que se incrementa en
+ * cada escritura): si nada cambió se sirve el archivo guardado, si algo cambió la clave es otra.
+ * Los archivos se borran por antigüedad (reports.cache.max-age) y, si el directorio supera
+ * reports.cache.max-size, por último acceso.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportCacheService {
+
+    private final ReportService reportService;
+    private final FleetWorkbookService fleetWorkbookService;
+    private final AdminRollupRepository adminRollupRepository;
+
+    @Value("${reports.cache.dir:${java.io.tmpdir}/catamaran-report-cache}")
+    private String cacheDir;
+
+    @Value("${reports.cache.max-size:512MB}")
+    private DataSize maxSize;
+
+    @Value("${reports.cache.max-age:PT24H}")
+    private Duration maxAge;
+
+    private Path directory;
+    // Último acceso por archivo; la fecha de modificación es la de generación
+    private final Map<Path, Instant> lastAccess = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        directory = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        // Las versiones están en la base, así que los archivos de una ejecución anterior siguen siendo válidos;
+        // solo se descartan las generaciones que quedaron a medias
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".part")).forEach(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * Escribe el reporte en {@code out}: desde el caché si la versión de datos no cambió, o
+     * generándolo y guardando una copia a la vez que se escribe.
+     */
+    public void write(ReportType type, ReportFormat format, Map<String, String> filters, OutputStream out) throws IOException {
+        // La versión se lee antes de generar: si cambia durante la generación, la próxima solicitud no acierta
+        Path cached = directory.resolve(key(type, format, filters) + "." + format.getExtension());
+        if (Files.exists(cached)) {
+            try {
+                Files.copy(cached, out);
+                lastAccess.put(cached, Instant.now());
+                return;
+            } catch (NoSuchFileException e) {
+                // Desalojado entre el exists y la copia: se vuelve a generar
+            }
+        }
+
+        Path partial = directory.resolve(UUID.randomUUID() + ".part");
+        try {
+            try (OutputStream file = Files.newOutputStream(partial)) {
+                OutputStream tee = new TeeOutputStream(out, file);
+                if (type == ReportType.FLEET) {
+                    fleetWorkbookService.write(tee);
+                } else {
+                    reportService.writeReport(type, format, filters, tee);
+                }
+            }
+            Files.move(partial, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastAccess.put(cached, Instant.now());
+        } finally {
+            deleteQuietly(partial);
+        }
+    }
+
+    /**
+     * Pre-genera los reportes estándar (sin filtros) para que la primera descarga del día
+     * salga del caché. Desactivado salvo que se configure reports.cache.pregenerate-cron.
+     */
+    @Scheduled(cron = "${reports.cache.pregenerate-cron:-}")
+    public void pregenerate() {
+        for (ReportType type : ReportType.values()) {
+            for (ReportFormat format : ReportFormat.values()) {
+                if (!type.supports(format)) {
+                    continue;
+                }
+                try {
+                    write(type, format, Map.of(), OutputStream.nullOutputStream());
+                } catch (IOException | RuntimeException e) {
+                    log.warn("No se pudo pre-generar el reporte {} {}: {}", type, format, e.getMessage());
+                }
+            }
+        }
+        log.info("Reportes estándar pre-generados");
+    }
+
+    @Scheduled(fixedDelayString = "${reports.cache.eviction-interval:PT10M}")
+    public void evict() throws IOException {
+        List<CachedFile> files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> !path.getFileName().toString().endsWith(".part"))
+                    .map(this::describe)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(CachedFile::lastAccess))
+                    .collect(Collectors.toList());
+        }
+
+        Instant oldest = Instant.now().minus(maxAge);
+        long total = files.stream().mapToLong(CachedFile::size).sum();
+        int evicted = 0;
+        for (CachedFile file : files) {
+            // Lista ordenada por último acceso: se borra lo vencido y lo menos usado hasta entrar en el límite
+            if (file.generated().isBefore(oldest) || total > maxSize.toBytes()) {
+                deleteQuietly(file.path());
+                lastAccess.remove(file.path());
+                total -= file.size();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("Caché de reportes: {} archivos desalojados, {} bytes en uso", evicted, total);
+        }
+    }
+
+    private String key(ReportType type, ReportFormat format, Map<String, String> filters) {
+        Map<String, Double> versions = new HashMap<>();
+        adminRollupRepository.findByMetric(AdminRollupEntity.DATA_VERSIONS)
+                .forEach(version -> versions.put(version.getBucket(), version.getAmount()));
+        String watermark = type.getTables().stream()
+                .map(table -> table + "=" + versions.getOrDefault(table, 0.0).longValue())
+                .collect(Collectors.joining(","));
+        Map<String, String> sortedFilters = new TreeMap<>(filters != null ? filters : Map.of());
+        String raw = type + "|" + format + "|" + sortedFilters + "|" + watermark;
+        if (sortedFilters.containsKey("month")) {
+            // "current", "last3"... son relativos a hoy: el mismo filtro mañana es otro rango
+            raw += "|" + LocalDate.now();
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el reporte en caché {}: {}", path, e.getMessage());
+        }
+    }
+
+    private CachedFile describe(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Instant generated = attributes.lastModifiedTime().toInstant();
+            return new CachedFile(path, attributes.size(), generated, lastAccess.getOrDefault(path, generated));
+        } catch (IOException e) {
+            // Desalojado mientras se listaba
+            return null;
+        }
+    }
+
+    private record CachedFile(Path path, long size, Instant generated, Instant lastAccess) {}
+
+    // Escribe en la respuesta y en el archivo del caché al mismo tiempo
+    private static final class TeeOutputStream extends FilterOutputStream {
+
+        private final OutputStream copy;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            copy.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // El stream de la respuesta lo cierra quien lo abrió
+            copy.close();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.ReportFormat;
+import com.catamaran.catamaranbackend.domain.ReportType;
+import com.catamaran.catamaranbackend.repository.ReportSpecifications;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Cola de reportes asíncronos. Los reportes se generan en un pool propio de tamaño fijo con una
+ * cola acotada; si la cola está llena la solicitud se rechaza en lugar de acumular trabajo. El
+ * resultado queda en disco hasta que vence su TTL.
+ * <p>
+ * Conexiones: un worker usa una para los reportes de una tabla, pero un libro FLEET usa 4 (snapshot
+ * más una por hoja, ver FleetWorkbookService). Esos libros se limitan aparte con
+ * reports.fleet.max-concurrent, compartido con las descargas directas, así que el reporting puede
+ * tomar hasta reports.jobs.workers + 4 × reports.fleet.max-concurrent conexiones del pool de Hikari.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportJobService {
+
+    public enum JobStatus {
+        PENDIENTE,
+        EN_PROCESO,
+        COMPLETADO,
+        FALLIDO
+    }
+
+    private final ReportCacheService reportCacheService;
+
+    @Value("${reports.jobs.workers:2}")
+    private int workers;
+
+    @Value("${reports.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${reports.jobs.dir:${java.io.tmpdir}/catamaran-reports}")
+    private String jobsDir;
+
+    @Value("${reports.jobs.ttl:PT1H}")
+    private Duration ttl;
+
+    private final Map<UUID, ReportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Path directory;
+
+    @PostConstruct
+    void start() throws IOException {
+        directory = Paths.get(jobsDir).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        // Los trabajos viven en memoria: lo que quedó de una ejecución anterior ya no es alcanzable
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Encola un reporte y devuelve su trabajo en estado PENDIENTE.
+     *
+     * @throws IllegalArgumentException si algún filtro no es válido
+     * @throws RejectedExecutionException si la cola de reportes está llena
+     */
+    public ReportJob submit(ReportType type, ReportFormat format, Map<String, String> filters) {
+        ReportJob job = new ReportJob(UUID.randomUUID(), type, format,
+                Collections.unmodifiableMap(ReportSpecifications.normalize(type, filters)));
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        log.info("Reporte encolado: {} ({} {})", job.getId(), type, format);
+        return job;
+    }
+
+    public Optional<ReportJob> find(UUID id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Borra los trabajos terminados cuyo TTL venció, junto con su archivo.
+     */
+    @Scheduled(fixedDelayString = "${reports.jobs.purge-interval:PT5M}")
+    public void purgeExpired() {
+        LocalDateTime limit = LocalDateTime.now().minus(ttl);
+        jobs.values().removeIf(job -> {
+            if (job.getCompletedAt() == null || job.getCompletedAt().isAfter(limit)) {
+                return false;
+            }
+            if (job.getFile() != null) {
+                deleteQuietly(job.getFile());
+            }
+            return true;
+        });
+    }
+
+    private void run(ReportJob job) {
+        job.status = JobStatus.EN_PROCESO;
+        job.startedAt = LocalDateTime.now();
+        Path partial = directory.resolve(job.getId() + ".part");
+        Path target = directory.resolve(job.getId() + "." + job.getFormat().getExtension());
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                reportCacheService.write(job.getType(), job.getFormat(), job.getFilters(), out);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            job.file = target;
+            job.size = Files.size(target);
+            job.completedAt = LocalDateTime.now();
+            job.status = JobStatus.COMPLETADO;
+        } catch (IOException | RuntimeException e) {
+            log.error("Falló el reporte {} ({} {})", job.getId(), job.getType(), job.getFormat(), e);
+            deleteQuietly(partial);
+            job.error = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = JobStatus.FALLIDO;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el reporte {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Estado de un reporte asíncrono. Lo modifica solo su worker; los campos son volatile
+     * porque se leen desde los hilos de las consultas de estado.
+     */
+    @Getter
+    public static class ReportJob {
+
+        private final UUID id;
+        private final ReportType type;
+        private final ReportFormat format;
+        private final Map<String, String> filters;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.PENDIENTE;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+        private volatile Path file;
+        private volatile long size;
+        private volatile String error;
+
+        ReportJob(UUID id, ReportType type, ReportFormat format, Map<String, String> filters) {
+            this.id = id;
+            this.type = type;
+            this.format = format;
+            this.filters = filters;
+        }
+    }
+}
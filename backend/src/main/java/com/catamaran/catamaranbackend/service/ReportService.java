@@ -3,10 +3,14 @@ package com.catamaran.catamaranbackend.service;
 import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
 import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
 import com.catamaran.catamaranbackend.domain.*;
-import com.catamaran.catamaranbackend.repository.BoatRepository;
-import com.catamaran.catamaranbackend.repository.MaintananceRepository;
-import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.repository.ReportSpecifications;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
@@ -14,53 +18,105 @@ import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ReportService {
 
-    private final BoatRepository boatRepository;
-    private final PaymentRepository paymentRepository;
-    private final MaintananceRepository maintananceRepository;
     private final UserRepositoryJpa userRepository;
+    private final EntityManager entityManager;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final int REPORT_FETCH_SIZE = 500;
 
-    // Excel Report Generation
-    public byte[] generateBoatsExcelReport() throws IOException {
-        List<BoatEntity> boats = boatRepository.findAll();
-        
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Embarcaciones");
-            
-            // Create header style
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "Nombre", "Tipo", "Modelo", "Ubicación", "Precio", "Propietario", "Balance"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
+    /**
+     * Escribe el reporte pedido en {@code out}, con los filtros de {@link ReportSpecifications}
+     * aplicados en la consulta.
+     *
+     * @throws IllegalArgumentException si algún filtro no es válido
+     */
+    @Transactional(readOnly = true)
+    public void writeReport(ReportType type, ReportFormat format, Map<String, String> filters, OutputStream out) throws IOException {
+        Map<String, String> criteria = filters != null ? filters : Map.of();
+        switch (type) {
+            case BOATS -> {
+                if (format == ReportFormat.PDF) {
+                    writeBoatsPdfReport(ReportSpecifications.forBoats(criteria), out);
+                } else {
+                    writeBoatsExcelReport(ReportSpecifications.forBoats(criteria), out);
+                }
+            }
+            case PAYMENTS -> {
+                if (format == ReportFormat.PDF) {
+                    writePaymentsPdfReport(ReportSpecifications.forPayments(criteria), out);
+                } else {
+                    writePaymentsExcelReport(ReportSpecifications.forPayments(criteria), out);
+                }
             }
-            
-            // Fill data
+            case MAINTENANCE -> {
+                if (format == ReportFormat.PDF) {
+                    writeMaintenancePdfReport(ReportSpecifications.forMaintenances(criteria), out);
+                } else {
+                    writeMaintenanceExcelReport(ReportSpecifications.forMaintenances(criteria), out);
+                }
+            }
+            // Usa varias transacciones en paralelo; no puede correr dentro de esta
+            case FLEET -> throw new IllegalArgumentException("El libro consolidado lo genera FleetWorkbookService");
+        }
+    }
+
+    // Excel Report Generation
+    // SXSSF mantiene en memoria solo las últimas EXCEL_ROW_WINDOW filas; el resto va a un temporal
+    // comprimido. Las filas llegan de un Stream JPA y se separan del contexto una vez escritas,
+    // así el heap no crece con la cantidad de registros.
+    private static final int EXCEL_ROW_WINDOW = 100;
+
+    // Anchos fijos (en caracteres): autoSizeColumn recorrería todas las celdas
+    private static final String[] BOAT_HEADERS = {"ID", "Nombre", "Tipo", "Modelo", "Ubicación", "Precio", "Propietario", "Balance"};
+    private static final int[] BOAT_WIDTHS = {8, 30, 20, 20, 25, 14, 30, 14};
+    private static final String[] PAYMENT_HEADERS = {"ID", "Monto", "Fecha", "Razón", "Estado", "Embarcación", "Propietario"};
+    private static final int[] PAYMENT_WIDTHS = {8, 14, 18, 16, 14, 30, 30};
+    private static final String[] MAINTENANCE_HEADERS = {"ID", "Embarcación", "Tipo", "Estado", "Prioridad", "Fecha Programada", "Fecha Realizada", "Costo", "Descripción"};
+    private static final int[] MAINTENANCE_WIDTHS = {8, 30, 16, 14, 12, 18, 18, 14, 50};
+
+    private void writeBoatsExcelReport(Specification<BoatEntity> filters, OutputStream out) throws IOException {
+        writeSingleSheetWorkbook(out, "Embarcaciones", (sheet, styles) -> fillBoatsSheet(sheet, styles, filters));
+    }
+
+    void fillBoatsSheet(Sheet sheet, ExcelStyles styles, Specification<BoatEntity> filters) {
+        try (Stream<BoatEntity> boats = streamForReport(BoatEntity.class, filters, boat -> boat.fetch("owner", JoinType.LEFT))) {
+            CellStyle dataStyle = styles.data();
+            writeHeaderRow(sheet, BOAT_HEADERS, BOAT_WIDTHS, styles.header());
+
             int rowNum = 1;
-            for (BoatEntity boat : boats) {
+            for (Iterator<BoatEntity> it = boats.iterator(); it.hasNext(); ) {
+                BoatEntity boat = it.next();
                 Row row = sheet.createRow(rowNum++);
-                
+
                 createCell(row, 0, boat.getId(), dataStyle);
                 createCell(row, 1, boat.getName(), dataStyle);
                 createCell(row, 2, boat.getType() != null ? boat.getType().name() : "", dataStyle);
@@ -69,79 +125,55 @@ public class ReportService {
                 createCell(row, 5, boat.getPrice(), dataStyle);
                 createCell(row, 6, boat.getOwner() != null ? boat.getOwner().getFullName() : "", dataStyle);
                 createCell(row, 7, boat.getBalance(), dataStyle);
+
+                entityManager.detach(boat);
             }
-            
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            workbook.write(out);
-            return out.toByteArray();
         }
     }
 
-    public byte[] generatePaymentsExcelReport() throws IOException {
-        List<PaymentEntity> payments = paymentRepository.findAll();
-        
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Pagos");
-            
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-            
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "Monto", "Fecha", "Razón", "Estado", "Embarcación", "Propietario"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
+    private void writePaymentsExcelReport(Specification<PaymentEntity> filters, OutputStream out) throws IOException {
+        writeSingleSheetWorkbook(out, "Pagos", (sheet, styles) -> fillPaymentsSheet(sheet, styles, filters));
+    }
+
+    void fillPaymentsSheet(Sheet sheet, ExcelStyles styles, Specification<PaymentEntity> filters) {
+        try (Stream<PaymentEntity> payments = streamForReport(PaymentEntity.class, filters, payment -> payment.fetch("boat", JoinType.LEFT).fetch("owner", JoinType.LEFT))) {
+            CellStyle dataStyle = styles.data();
+            writeHeaderRow(sheet, PAYMENT_HEADERS, PAYMENT_WIDTHS, styles.header());
+
             int rowNum = 1;
-            for (PaymentEntity payment : payments) {
+            for (Iterator<PaymentEntity> it = payments.iterator(); it.hasNext(); ) {
+                PaymentEntity payment = it.next();
                 Row row = sheet.createRow(rowNum++);
-                
+
                 createCell(row, 0, payment.getId(), dataStyle);
                 createCell(row, 1, payment.getMount(), dataStyle);
                 createCell(row, 2, payment.getDate() != null ? payment.getDate().format(DATE_FORMATTER) : "", dataStyle);
                 createCell(row, 3, payment.getReason() != null ? payment.getReason().name() : "", dataStyle);
                 createCell(row, 4, payment.getStatus() != null ? payment.getStatus().name() : "", dataStyle);
                 createCell(row, 5, payment.getBoat() != null ? payment.getBoat().getName() : "", dataStyle);
-                createCell(row, 6, payment.getBoat() != null && payment.getBoat().getOwner() != null ? 
+                createCell(row, 6, payment.getBoat() != null && payment.getBoat().getOwner() != null ?
                     payment.getBoat().getOwner().getFullName() : "", dataStyle);
+
+                // El bote y su propietario se comparten entre filas; solo se suelta el pago
+                entityManager.detach(payment);
             }
-            
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            workbook.write(out);
-            return out.toByteArray();
         }
     }
 
-    public byte[] generateMaintenanceExcelReport() throws IOException {
-        List<MaintananceEntity> maintenances = maintananceRepository.findAll();
-        
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Mantenimientos");
-            
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-            
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "Embarcación", "Tipo", "Estado", "Prioridad", "Fecha Programada", "Fecha Realizada", "Costo", "Descripción"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
+    private void writeMaintenanceExcelReport(Specification<MaintananceEntity> filters, OutputStream out) throws IOException {
+        writeSingleSheetWorkbook(out, "Mantenimientos", (sheet, styles) -> fillMaintenanceSheet(sheet, styles, filters));
+    }
+
+    void fillMaintenanceSheet(Sheet sheet, ExcelStyles styles, Specification<MaintananceEntity> filters) {
+        try (Stream<MaintananceEntity> maintenances = streamForReport(MaintananceEntity.class, filters, ReportService::fetchMaintenanceRelations)) {
+            CellStyle dataStyle = styles.data();
+            writeHeaderRow(sheet, MAINTENANCE_HEADERS, MAINTENANCE_WIDTHS, styles.header());
+
             int rowNum = 1;
-            for (MaintananceEntity maintenance : maintenances) {
+            for (Iterator<MaintananceEntity> it = maintenances.iterator(); it.hasNext(); ) {
+                MaintananceEntity maintenance = it.next();
                 Row row = sheet.createRow(rowNum++);
-                
+
                 createCell(row, 0, maintenance.getId(), dataStyle);
                 createCell(row, 1, maintenance.getBoat() != null ? maintenance.getBoat().getName() : "", dataStyle);
                 createCell(row, 2, maintenance.getType() != null ? maintenance.getType().name() : "", dataStyle);
@@ -151,161 +183,154 @@ public class ReportService {
                 createCell(row, 6, maintenance.getDatePerformed() != null ? maintenance.getDatePerformed().format(DATE_FORMATTER) : "", dataStyle);
                 createCell(row, 7, maintenance.getCost(), dataStyle);
                 createCell(row, 8, maintenance.getDescription(), dataStyle);
+
+                if (maintenance.getPayment() != null) {
+                    entityManager.detach(maintenance.getPayment());
+                }
+                entityManager.detach(maintenance);
             }
-            
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            workbook.write(out);
-            return out.toByteArray();
         }
     }
 
     // PDF Report Generation
-    public byte[] generateBoatsPdfReport() throws IOException {
-        List<BoatEntity> boats = boatRepository.findAll();
-        
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(out);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            
-            // Title
-            Paragraph title = new Paragraph("Reporte de Embarcaciones")
-                .setFontSize(20)
-                .setBold()
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(title);
-            
-            Paragraph date = new Paragraph("Fecha: " + LocalDateTime.now().format(DATE_FORMATTER))
-                .setFontSize(10)
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(date);
-            
-            document.add(new Paragraph("\n"));
-            
-            // Table
-            float[] columnWidths = {1, 3, 2, 2, 2, 2, 3, 2};
-            Table table = new Table(UnitValue.createPercentArray(columnWidths));
-            table.setWidth(UnitValue.createPercentValue(100));
-            
-            // Headers
-            addTableHeader(table, new String[]{"ID", "Nombre", "Tipo", "Modelo", "Ubicación", "Precio", "Propietario", "Balance"});
-            
-            // Data
-            for (BoatEntity boat : boats) {
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(String.valueOf(boat.getId()))));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getName() != null ? boat.getName() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getType() != null ? boat.getType().name() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getModel() != null ? boat.getModel() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getLocation() != null ? boat.getLocation() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getPrice() != null ? "$" + boat.getPrice() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getOwner() != null ? boat.getOwner().getFullName() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(boat.getBalance() != null ? "$" + boat.getBalance() : "")));
+    // Las tablas son "large tables" de iText: se agregan al documento vacías y se vacían cada
+    // PDF_FLUSH_ROWS filas, así las páginas completas se escriben en la respuesta y el heap solo
+    // guarda las filas pendientes. Los programas de fuente se cargan una vez y se comparten.
+    private static final int PDF_FLUSH_ROWS = 200;
+    private static final DateTimeFormatter SHORT_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final FontProgram REGULAR_FONT = loadStandardFont(StandardFonts.HELVETICA);
+    private static final FontProgram BOLD_FONT = loadStandardFont(StandardFonts.HELVETICA_BOLD);
+
+    private void writeBoatsPdfReport(Specification<BoatEntity> filters, OutputStream out) throws IOException {
+        try (Stream<BoatEntity> boats = streamForReport(BoatEntity.class, filters, boat -> boat.fetch("owner", JoinType.LEFT));
+             PdfReport report = new PdfReport(out, "Reporte de Embarcaciones", new float[]{1, 3, 2, 2, 2, 2, 3, 2},
+                     new String[]{"ID", "Nombre", "Tipo", "Modelo", "Ubicación", "Precio", "Propietario", "Balance"})) {
+            for (Iterator<BoatEntity> it = boats.iterator(); it.hasNext(); ) {
+                BoatEntity boat = it.next();
+                report.addRow(
+                    String.valueOf(boat.getId()),
+                    boat.getName() != null ? boat.getName() : "",
+                    boat.getType() != null ? boat.getType().name() : "",
+                    boat.getModel() != null ? boat.getModel() : "",
+                    boat.getLocation() != null ? boat.getLocation() : "",
+                    boat.getPrice() != null ? "$" + boat.getPrice() : "",
+                    boat.getOwner() != null ? boat.getOwner().getFullName() : "",
+                    boat.getBalance() != null ? "$" + boat.getBalance() : "");
+
+                entityManager.detach(boat);
             }
-            
-            document.add(table);
-            document.close();
-            
-            return out.toByteArray();
         }
     }
 
-    public byte[] generatePaymentsPdfReport() throws IOException {
-        List<PaymentEntity> payments = paymentRepository.findAll();
-        
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(out);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            
-            Paragraph title = new Paragraph("Reporte de Pagos")
-                .setFontSize(20)
-                .setBold()
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(title);
-            
-            Paragraph date = new Paragraph("Fecha: " + LocalDateTime.now().format(DATE_FORMATTER))
-                .setFontSize(10)
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(date);
-            
-            document.add(new Paragraph("\n"));
-            
-            float[] columnWidths = {1, 2, 3, 2, 2, 3, 3};
-            Table table = new Table(UnitValue.createPercentArray(columnWidths));
-            table.setWidth(UnitValue.createPercentValue(100));
-            
-            addTableHeader(table, new String[]{"ID", "Monto", "Fecha", "Razón", "Estado", "Embarcación", "Propietario"});
-            
-            for (PaymentEntity payment : payments) {
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(String.valueOf(payment.getId()))));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(payment.getMount() != null ? "$" + payment.getMount() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(payment.getDate() != null ? payment.getDate().format(DATE_FORMATTER) : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(payment.getReason() != null ? payment.getReason().name() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(payment.getStatus() != null ? payment.getStatus().name() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(payment.getBoat() != null ? payment.getBoat().getName() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(payment.getBoat() != null && payment.getBoat().getOwner() != null ?
-                    payment.getBoat().getOwner().getFullName() : "")));
+    private void writePaymentsPdfReport(Specification<PaymentEntity> filters, OutputStream out) throws IOException {
+        try (Stream<PaymentEntity> payments = streamForReport(PaymentEntity.class, filters, payment -> payment.fetch("boat", JoinType.LEFT).fetch("owner", JoinType.LEFT));
+             PdfReport report = new PdfReport(out, "Reporte de Pagos", new float[]{1, 2, 3, 2, 2, 3, 3},
+                     new String[]{"ID", "Monto", "Fecha", "Razón", "Estado", "Embarcación", "Propietario"})) {
+            for (Iterator<PaymentEntity> it = payments.iterator(); it.hasNext(); ) {
+                PaymentEntity payment = it.next();
+                report.addRow(
+                    String.valueOf(payment.getId()),
+                    payment.getMount() != null ? "$" + payment.getMount() : "",
+                    payment.getDate() != null ? payment.getDate().format(DATE_FORMATTER) : "",
+                    payment.getReason() != null ? payment.getReason().name() : "",
+                    payment.getStatus() != null ? payment.getStatus().name() : "",
+                    payment.getBoat() != null ? payment.getBoat().getName() : "",
+                    payment.getBoat() != null && payment.getBoat().getOwner() != null ?
+                        payment.getBoat().getOwner().getFullName() : "");
+
+                entityManager.detach(payment);
             }
-            
-            document.add(table);
-            document.close();
-            
-            return out.toByteArray();
         }
     }
 
-    public byte[] generateMaintenancePdfReport() throws IOException {
-        List<MaintananceEntity> maintenances = maintananceRepository.findAll();
-        
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(out);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            
-            Paragraph title = new Paragraph("Reporte de Mantenimientos")
-                .setFontSize(20)
-                .setBold()
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(title);
-            
-            Paragraph date = new Paragraph("Fecha: " + LocalDateTime.now().format(DATE_FORMATTER))
-                .setFontSize(10)
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(date);
-            
-            document.add(new Paragraph("\n"));
-            
-            float[] columnWidths = {1, 2, 2, 2, 2, 2, 2, 2};
-            Table table = new Table(UnitValue.createPercentArray(columnWidths));
-            table.setWidth(UnitValue.createPercentValue(100));
-            
-            addTableHeader(table, new String[]{"ID", "Embarcación", "Tipo", "Estado", "Prioridad", "F. Programada", "F. Realizada", "Costo"});
-            
-            for (MaintananceEntity maintenance : maintenances) {
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(String.valueOf(maintenance.getId()))));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getBoat() != null ? maintenance.getBoat().getName() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getType() != null ? maintenance.getType().name() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getStatus() != null ? maintenance.getStatus().name() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getPriority() != null ? maintenance.getPriority().name() : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getDateScheduled() != null ?
-                    maintenance.getDateScheduled().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getDatePerformed() != null ?
-                    maintenance.getDatePerformed().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : "")));
-                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(maintenance.getCost() != null ? "$" + maintenance.getCost() : "")));
+    private void writeMaintenancePdfReport(Specification<MaintananceEntity> filters, OutputStream out) throws IOException {
+        try (Stream<MaintananceEntity> maintenances = streamForReport(MaintananceEntity.class, filters, ReportService::fetchMaintenanceRelations);
+             PdfReport report = new PdfReport(out, "Reporte de Mantenimientos", new float[]{1, 2, 2, 2, 2, 2, 2, 2},
+                     new String[]{"ID", "Embarcación", "Tipo", "Estado", "Prioridad", "F. Programada", "F. Realizada", "Costo"})) {
+            for (Iterator<MaintananceEntity> it = maintenances.iterator(); it.hasNext(); ) {
+                MaintananceEntity maintenance = it.next();
+                report.addRow(
+                    String.valueOf(maintenance.getId()),
+                    maintenance.getBoat() != null ? maintenance.getBoat().getName() : "",
+                    maintenance.getType() != null ? maintenance.getType().name() : "",
+                    maintenance.getStatus() != null ? maintenance.getStatus().name() : "",
+                    maintenance.getPriority() != null ? maintenance.getPriority().name() : "",
+                    maintenance.getDateScheduled() != null ? maintenance.getDateScheduled().format(SHORT_DATE_FORMATTER) : "",
+                    maintenance.getDatePerformed() != null ? maintenance.getDatePerformed().format(SHORT_DATE_FORMATTER) : "",
+                    maintenance.getCost() != null ? "$" + maintenance.getCost() : "");
+
+                if (maintenance.getPayment() != null) {
+                    entityManager.detach(maintenance.getPayment());
+                }
+                entityManager.detach(maintenance);
             }
-            
-            document.add(table);
-            document.close();
-            
-            return out.toByteArray();
         }
     }
 
+    /**
+     * Filas del reporte en orden de id, filtradas en SQL y con las relaciones que muestra el reporte
+     * cargadas en la misma consulta. Se leen en bloques de REPORT_FETCH_SIZE, en modo solo lectura.
+     */
+    private <T> Stream<T> streamForReport(Class<T> entity, Specification<T> filters, Consumer<Root<T>> fetches) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(entity);
+        Root<T> root = query.from(entity);
+        fetches.accept(root);
+
+        Predicate predicate = filters != null ? filters.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, REPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private static void fetchMaintenanceRelations(Root<MaintananceEntity> maintenance) {
+        maintenance.fetch("boat", JoinType.LEFT);
+        maintenance.fetch("payment", JoinType.LEFT);
+    }
+
     // Helper methods for Excel
-    private CellStyle createHeaderStyle(Workbook workbook) {
+    private void writeSingleSheetWorkbook(OutputStream out, String sheetName, BiConsumer<Sheet, ExcelStyles> fill) throws IOException {
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        try {
+            fill.accept(workbook.createSheet(sheetName), ExcelStyles.of(workbook));
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    SXSSFWorkbook newStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private void writeHeaderRow(Sheet sheet, String[] headers, int[] widths, CellStyle headerStyle) {
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+    }
+
+    // Estilos compartidos por las hojas de un libro; se crean una vez, antes de llenar las hojas
+    record ExcelStyles(CellStyle header, CellStyle data) {
+        static ExcelStyles of(Workbook workbook) {
+            return new ExcelStyles(createHeaderStyle(workbook), createDataStyle(workbook));
+        }
+    }
+
+    private static CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
         font.setBold(true);
@@ -320,7 +345,7 @@ public class ReportService {
         return style;
     }
 
-    private CellStyle createDataStyle(Workbook workbook) {
+    private static CellStyle createDataStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         style.setBorderBottom(BorderStyle.THIN);
         style.setBorderTop(BorderStyle.THIN);
@@ -342,12 +367,69 @@ public class ReportService {
     }
 
     // Helper methods for PDF
-    private void addTableHeader(Table table, String[] headers) {
-        for (String header : headers) {
-            com.itextpdf.layout.element.Cell cell = new com.itextpdf.layout.element.Cell().add(new Paragraph(header).setBold());
-            cell.setBackgroundColor(ColorConstants.LIGHT_GRAY);
-            cell.setTextAlignment(TextAlignment.CENTER);
-            table.addHeaderCell(cell);
+    private static FontProgram loadStandardFont(String name) {
+        try {
+            return FontProgramFactory.createFont(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cargar la fuente " + name, e);
+        }
+    }
+
+    /**
+     * Documento PDF con título y una tabla grande que se escribe a medida que llegan filas.
+     * No cierra el OutputStream recibido (es el de la respuesta HTTP).
+     */
+    private static final class PdfReport implements AutoCloseable {
+
+        private final Document document;
+        private final Table table;
+        private final PdfFont bold;
+        private int pendingRows;
+
+        PdfReport(OutputStream out, String title, float[] columnWidths, String[] headers) {
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
+            PdfDocument pdf = new PdfDocument(writer);
+            // Los PdfFont pertenecen a un documento; el programa de fuente es lo que se comparte
+            PdfFont regular = PdfFontFactory.createFont(REGULAR_FONT, PdfEncodings.WINANSI);
+            bold = PdfFontFactory.createFont(BOLD_FONT, PdfEncodings.WINANSI);
+            document = new Document(pdf);
+            document.setFont(regular);
+
+            document.add(new Paragraph(title)
+                .setFont(bold)
+                .setFontSize(20)
+                .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph("Fecha: " + LocalDateTime.now().format(DATE_FORMATTER))
+                .setFontSize(10)
+                .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph("\n"));
+
+            table = new Table(UnitValue.createPercentArray(columnWidths), true);
+            table.setWidth(UnitValue.createPercentValue(100));
+            for (String header : headers) {
+                com.itextpdf.layout.element.Cell cell = new com.itextpdf.layout.element.Cell().add(new Paragraph(header).setFont(bold));
+                cell.setBackgroundColor(ColorConstants.LIGHT_GRAY);
+                cell.setTextAlignment(TextAlignment.CENTER);
+                table.addHeaderCell(cell);
+            }
+            document.add(table);
+        }
+
+        void addRow(String... values) {
+            for (String value : values) {
+                table.addCell(new com.itextpdf.layout.element.Cell().add(new Paragraph(value != null ? value : "")));
+            }
+            if (++pendingRows >= PDF_FLUSH_ROWS) {
+                table.flush();
+                pendingRows = 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            table.complete();
+            document.close();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,396 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.BoatDocumentEntity;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import com.catamaran.catamaranbackend.domain.UploadKind;
+import com.catamaran.catamaranbackend.domain.UploadSessionEntity;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.repository.UploadSessionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Subidas reanudables por partes (al estilo tus) para documentos y recibos grandes. El cliente
+ * crea la subida con el tamaño total y envía el contenido en partes, cada una con el offset desde
+ * el que escribe; si la conexión se corta, consulta el offset guardado y continúa desde ahí.
+ * <p>
+ * Cada parte se escribe directo en el archivo final con escrituras posicionales, sin pasar por
+ * memoria ni por un temporal de multipart, y el SHA-256 se calcula mientras llega, así que al
+ * completar el archivo se mueve al almacén sin volver a leerlo. Las partes en vuelo están
+ * limitadas globalmente (uploads.resumable.max-concurrent) y cada una a max-chunk-size, para
+ * que las subidas grandes no ocupen los hilos de las demás solicitudes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final BoatRepository boatRepository;
+    private final PaymentRepository paymentRepository;
+    private final FileStorageService fileStorageService;
+    private final BoatDocumentService boatDocumentService;
+    private final PaymentReceiptService paymentReceiptService;
+
+    @Value("${uploads.resumable.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${uploads.resumable.max-chunk-size:16MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${uploads.resumable.max-length:2GB}")
+    private DataSize maxLength;
+
+    @Value("${uploads.resumable.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${uploads.resumable.purge-batch-size:100}")
+    private int purgeBatchSize;
+
+    private Semaphore inFlight;
+
+    // Estado en memoria de cada subida: candado de la parte en curso y SHA-256 hasta digestedBytes
+    private final Map<String, UploadState> states = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        inFlight = new Semaphore(maxConcurrent);
+    }
+
+    public UploadSessionEntity create(UploadKind kind, Long targetId, String documentName,
+                                      String filename, String contentType, long length, Long userId) {
+        if (length <= 0 || length > maxLength.toBytes()) {
+            throw new UploadException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "El tamaño debe estar entre 1 byte y " + maxLength.toMegabytes() + "MB");
+        }
+        if (filename == null || filename.isBlank()) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "Falta el nombre del archivo");
+        }
+        boolean targetExists = kind == UploadKind.DOCUMENT
+                ? boatRepository.existsById(targetId)
+                : paymentRepository.existsById(targetId);
+        if (!targetExists) {
+            throw new UploadException(HttpStatus.NOT_FOUND,
+                    kind == UploadKind.DOCUMENT ? "Bote no encontrado" : "Pago no encontrado");
+        }
+
+        Instant now = Instant.now();
+        UploadSessionEntity session = uploadSessionRepository.save(UploadSessionEntity.builder()
+                .id(UUID.randomUUID().toString())
+                .kind(kind)
+                .targetId(targetId)
+                .documentName(documentName != null && !documentName.isBlank() ? documentName : filename)
+                .filename(filename)
+                .contentType(contentType)
+                .length(length)
+                .received(0)
+                .userId(userId)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        log.info("Subida reanudable {} creada: {} {} ({} bytes)", session.getId(), kind, targetId, length);
+        return session;
+    }
+
+    public UploadSessionEntity get(String id, Long userId) {
+        UploadSessionEntity session = uploadSessionRepository.findById(id)
+                .filter(s -> s.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new UploadException(HttpStatus.NOT_FOUND, "Subida no encontrada o vencida"));
+        if (!session.getUserId().equals(userId)) {
+            throw new UploadException(HttpStatus.FORBIDDEN, "La subida pertenece a otro usuario");
+        }
+        return session;
+    }
+
+    /**
+     * Escribe una parte a partir de offset, que debe ser lo ya recibido. Lo escrito se guarda
+     * aunque el cliente corte la conexión a mitad de la parte.
+     *
+     * @return offset después de la parte
+     */
+    public long append(String id, Long userId, long offset, InputStream content) throws IOException {
+        get(id, userId);
+        if (!inFlight.tryAcquire()) {
+            throw new UploadException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiadas subidas en curso, intente nuevamente");
+        }
+        try {
+            UploadState state = lock(id);
+            try {
+                // Se relee bajo el candado: otra parte pudo avanzar la subida mientras tanto
+                UploadSessionEntity session = get(id, userId);
+                if (session.getStoredHash() != null) {
+                    throw new UploadException(HttpStatus.CONFLICT, "La subida ya está completa");
+                }
+                if (offset != session.getReceived()) {
+                    throw new UploadException(HttpStatus.CONFLICT,
+                            "El offset no coincide con lo recibido (" + session.getReceived() + ")");
+                }
+                MessageDigest digest = state.digestUpTo(fileStorageService.partialFile(id), offset);
+                long limit = Math.min(maxChunkSize.toBytes(), session.getLength() - offset);
+                long written = 0;
+                boolean oversized = false;
+                try (FileChannel channel = FileChannel.open(fileStorageService.partialFile(id),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    while (written < limit) {
+                        int read = content.read(buffer, 0, (int) Math.min(buffer.length, limit - written));
+                        if (read == -1) {
+                            break;
+                        }
+                        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                        while (chunk.hasRemaining()) {
+                            channel.write(chunk, offset + written + chunk.position());
+                        }
+                        digest.update(buffer, 0, read);
+                        written += read;
+                        state.digestedBytes = offset + written;
+                    }
+                    oversized = written == limit && content.read() != -1;
+                } finally {
+                    if (written > 0) {
+                        session.setReceived(offset + written);
+                        session.setExpiresAt(Instant.now().plus(ttl));
+                        uploadSessionRepository.save(session);
+                    }
+                }
+                if (oversized) {
+                    throw new UploadException(HttpStatus.PAYLOAD_TOO_LARGE, "La parte excede "
+                            + maxChunkSize.toMegabytes() + "MB o el tamaño declarado; se guardaron "
+                            + written + " bytes");
+                }
+                return offset + written;
+            } catch (OptimisticLockingFailureException e) {
+                // Otra instancia avanzó la misma subida; lo escrito aquí no cuenta
+                states.remove(id);
+                throw new UploadException(HttpStatus.CONFLICT, "La subida fue modificada por otra solicitud");
+            } finally {
+                state.lock.unlock();
+            }
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Completa la subida: guarda el archivo en el almacén y crea el documento o registra el recibo.
+     * La subida se borra recién cuando el destino quedó guardado; si el pago cambió al mismo tiempo
+     * (409), el archivo sigue referenciado por la subida y basta con volver a completarla.
+     *
+     * @return BoatDocumentEntity o PaymentEntity según el tipo de subida
+     */
+    public Object complete(String id, Long userId) throws IOException {
+        get(id, userId);
+        UploadState state = lock(id);
+        try {
+            UploadSessionEntity session = get(id, userId);
+            if (session.getReceived() != session.getLength()) {
+                throw new UploadException(HttpStatus.CONFLICT, "Faltan bytes: recibidos "
+                        + session.getReceived() + " de " + session.getLength());
+            }
+            StoredFileEntity stored = adoptOnce(session, state);
+
+            if (session.getKind() == UploadKind.DOCUMENT) {
+                Optional<BoatEntity> boat = boatRepository.findSummaryById(session.getTargetId());
+                if (boat.isEmpty()) {
+                    discard(session);
+                    throw new UploadException(HttpStatus.NOT_FOUND, "Bote no encontrado");
+                }
+                BoatDocumentEntity document;
+                try {
+                    document = boatDocumentService.addDocument(
+                            boat.get(), session.getDocumentName(), session.getFilename(), stored);
+                } catch (RuntimeException e) {
+                    // addDocument ya liberó la referencia: la subida no se puede reintentar
+                    session.setStoredHash(null);
+                    discard(session);
+                    throw e;
+                }
+                finish(session);
+                log.info("Subida reanudable {} completada: documento {}", id, document.getId());
+                return document;
+            }
+
+            String fileName = "receipt_" + session.getTargetId() + "_" + System.currentTimeMillis() + "_" + session.getFilename();
+            Optional<PaymentEntity> payment;
+            try {
+                payment = paymentReceiptService.registerReceipt(session.getTargetId(), fileName, stored);
+            } catch (OptimisticLockingFailureException e) {
+                throw new UploadException(HttpStatus.CONFLICT, "El pago fue actualizado por otra solicitud, intente nuevamente");
+            }
+            if (payment.isEmpty()) {
+                discard(session);
+                throw new UploadException(HttpStatus.NOT_FOUND, "Pago no encontrado");
+            }
+            finish(session);
+            log.info("Subida reanudable {} completada: recibo del pago {}", id, session.getTargetId());
+            return payment.get();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    public void cancel(String id, Long userId) {
+        get(id, userId);
+        UploadState state = lock(id);
+        try {
+            discard(id);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Borra las subidas vencidas (sin partes durante uploads.resumable.ttl) y sus archivos parciales.
+     */
+    @Scheduled(fixedDelayString = "${uploads.resumable.purge-interval:PT1H}")
+    public void purgeExpired() {
+        List<String> expired = uploadSessionRepository.findExpiredIds(Instant.now(), PageRequest.of(0, purgeBatchSize));
+        int purged = 0;
+        for (String id : expired) {
+            UploadState state = states.computeIfAbsent(id, key -> new UploadState());
+            if (!state.lock.tryLock()) {
+                continue; // Tiene una parte en curso
+            }
+            try {
+                discard(id);
+                purged++;
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        if (purged > 0) {
+            log.info("Subidas reanudables vencidas eliminadas: {}", purged);
+        }
+    }
+
+    /**
+     * Pasa el archivo parcial al almacén una sola vez: el hash queda en la subida, que conserva la
+     * referencia hasta que el documento o el recibo la toman (o hasta que se descarta).
+     */
+    private StoredFileEntity adoptOnce(UploadSessionEntity session, UploadState state) throws IOException {
+        if (session.getStoredHash() != null) {
+            Optional<StoredFileEntity> stored = fileStorageService.find(session.getStoredHash());
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            throw new UploadException(HttpStatus.GONE, "El archivo de la subida ya no existe");
+        }
+        Path file = fileStorageService.partialFile(session.getId());
+        String hash = HexFormat.of().formatHex(state.digestUpTo(file, session.getLength()).digest());
+        // digest() reinicia el cálculo: si algo falla se recalcula desde el archivo
+        state.digest = null;
+        StoredFileEntity stored = fileStorageService.adopt(file, hash, session.getFilename(), session.getContentType());
+        session.setStoredHash(stored.getHash());
+        try {
+            uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            fileStorageService.release(stored.getHash());
+            throw e;
+        }
+        return stored;
+    }
+
+    // La referencia al archivo ya pasó al documento o al recibo
+    private void finish(UploadSessionEntity session) {
+        uploadSessionRepository.deleteById(session.getId());
+        states.remove(session.getId());
+    }
+
+    private void discard(String id) {
+        uploadSessionRepository.findById(id).ifPresentOrElse(this::discard, () -> states.remove(id));
+    }
+
+    private void discard(UploadSessionEntity session) {
+        uploadSessionRepository.deleteById(session.getId());
+        states.remove(session.getId());
+        fileStorageService.release(session.getStoredHash());
+        try {
+            Files.deleteIfExists(fileStorageService.partialFile(session.getId()));
+        } catch (IOException e) {
+            log.warn("No se pudo borrar la subida parcial {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    // Una sola operación por subida a la vez; la segunda se rechaza en lugar de esperar
+    private UploadState lock(String id) {
+        UploadState state = states.computeIfAbsent(id, key -> new UploadState());
+        if (!state.lock.tryLock()) {
+            throw new UploadException(HttpStatus.CONFLICT, "La subida tiene otra parte en curso");
+        }
+        return state;
+    }
+
+    private static final class UploadState {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private MessageDigest digest;
+        private long digestedBytes;
+
+        /**
+         * SHA-256 de los primeros {@code bytes} bytes del archivo. Normalmente ya está calculado
+         * por las partes anteriores; tras un reinicio o una parte fallida se recalcula leyendo el archivo.
+         */
+        MessageDigest digestUpTo(Path file, long bytes) throws IOException {
+            if (digest != null && digestedBytes == bytes) {
+                return digest;
+            }
+            digest = sha256();
+            digestedBytes = 0;
+            if (bytes > 0) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    while (digestedBytes < bytes) {
+                        int read = in.read(buffer, 0, (int) Math.min(buffer.length, bytes - digestedBytes));
+                        if (read == -1) {
+                            throw new IOException("El archivo parcial tiene menos bytes que los recibidos");
+                        }
+                        digest.update(buffer, 0, read);
+                        digestedBytes += read;
+                    }
+                }
+            }
+            return digest;
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.BoatDocumentEntity;
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Libera la referencia al archivo guardado cuando se borra un documento o un pago, también
+ * cuando el borrado llega en cascada desde la embarcación. Hibernate obtiene el listener del
+ * contexto de Spring; el almacén se resuelve de forma diferida para no depender del orden de arranque.
+ */
+@Component
+public class StoredFileReferenceListener {
+
+    private final ObjectProvider<FileStorageService> fileStorageService;
+
+    public StoredFileReferenceListener(ObjectProvider<FileStorageService> fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        String hash = null;
+        if (entity instanceof BoatDocumentEntity document) {
+            hash = document.getFileHash();
+        } else if (entity instanceof PaymentEntity payment) {
+            hash = payment.getInvoiceHash();
+        }
+        if (hash != null) {
+            fileStorageService.getObject().release(hash);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.catamaran.catamaranbackend.service;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Rechazo de una operación de subida reanudable, con el estado HTTP que corresponde.
+ */
+@Getter
+public class UploadException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public UploadException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -129,7 +129,7 @@ async function loadGeneralStatistics() {
 // Load payments from API
 async function loadPayments(page = 0, search = '', reason = 'all', month = 'all', status = 'all') {
     try {
-        let url = `/api/v1/payments?page=${page}&size=${pageSize}`;
+        let url = `/api/v1/payments?page=${page}&size=${pageSize}&view=summary`;
 
         // Add filter parameters if provided
         if (search) url += `&search=${encodeURIComponent(search)}`;
@@ -325,19 +325,18 @@ function renderPayments() {
         filteredPayments.forEach(payment => {
             const row = document.createElement('tr');
             const paymentDate = new Date(payment.date).toLocaleString('es-ES');
-            const boat = payment.boat;
 
             row.innerHTML = `
                 <td>${payment.id}</td>
-                <td>${boat ? boat.name : 'Sin embarcación'}</td>
+                <td>${payment.boatName || 'Sin embarcación'}</td>
                 <td><span class="reason-badge ${getReasonClass(payment.reason)}">${formatPaymentReason(payment.reason)}</span></td>
-                <td class="price">${formatPrice(payment.mount)}</td>
+                <td class="price">${formatPrice(payment.amount)}</td>
                 <td>${paymentDate}</td>
-                <td>${payment.invoice_url ? `<button class="action-btn download-btn" onclick="downloadReceipt(${payment.id})">Descargar</button>` : 'Sin factura'}</td>
+                <td>${payment.invoiceUrl ? `<button class="action-btn download-btn" onclick="downloadReceipt(${payment.id})">Descargar</button>` : 'Sin factura'}</td>
                 <td>
                     <div class="action-buttons">
                         <button class="action-btn view-btn" onclick="viewPayment(${payment.id})">Ver</button>
-                        ${!payment.invoice_url ? `<button class="action-btn attach-btn" onclick="openReceiptModal(${payment.id})">Adjuntar Recibo</button>` : ''}
+                        ${!payment.invoiceUrl ? `<button class="action-btn attach-btn" onclick="openReceiptModal(${payment.id})">Adjuntar Recibo</button>` : ''}
                         <button class="action-btn delete-btn" onclick="deletePayment(${payment.id})">Eliminar</button>
                     </div>
                 </td>
@@ -371,11 +370,10 @@ function viewPayment(id) {
     const payment = payments.find(p => p.id === id);
     if (!payment) return;
 
-    const boat = payment.boat;
-    const boatInfo = boat ? `Embarcación: ${boat.name}` : 'Sin embarcación asignada';
+    const boatInfo = payment.boatName ? `Embarcación: ${payment.boatName}` : 'Sin embarcación asignada';
 
     // For now, just show an alert with payment details
-    alert(`Pago #${payment.id}\n\n${boatInfo}\nMonto: ${formatPrice(payment.mount)}\nRazón: ${formatPaymentReason(payment.reason)}\nFecha: ${new Date(payment.date).toLocaleString('es-ES')}\nFactura: ${payment.invoice_url || 'N/A'}`);
+    alert(`Pago #${payment.id}\n\n${boatInfo}\nMonto: ${formatPrice(payment.amount)}\nRazón: ${formatPaymentReason(payment.reason)}\nFecha: ${new Date(payment.date).toLocaleString('es-ES')}\nFactura: ${payment.invoiceUrl || 'N/A'}`);
 }
 
 // Delete payment
@@ -459,8 +457,7 @@ function openReceiptModal(paymentId) {
     const payment = payments.find(p => p.id === paymentId);
     if (!payment) return;
 
-    const boat = payment.boat;
-    const boatName = boat ? boat.name : 'Sin embarcación';
+    const boatName = payment.boatName || 'Sin embarcación';
 
     // Show payment info
     document.getElementById('receiptInfo').innerHTML = `
@@ -468,7 +465,7 @@ function openReceiptModal(paymentId) {
             <h4 style="margin: 0 0 10px 0; color: #1f2937;">Información del Pago</h4>
             <p style="margin: 5px 0;"><strong>ID:</strong> ${payment.id}</p>
             <p style="margin: 5px 0;"><strong>Embarcación:</strong> ${boatName}</p>
-            <p style="margin: 5px 0;"><strong>Monto:</strong> ${formatPrice(payment.mount)}</p>
+            <p style="margin: 5px 0;"><strong>Monto:</strong> ${formatPrice(payment.amount)}</p>
             <p style="margin: 5px 0;"><strong>Razón:</strong> ${formatPaymentReason(payment.reason)}</p>
             <p style="margin: 5px 0;"><strong>Fecha:</strong> ${new Date(payment.date).toLocaleString('es-ES')}</p>
         </div>
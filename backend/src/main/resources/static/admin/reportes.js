@@ -25,23 +25,57 @@ function getAuthHeaders() {
     };
 }
 
+// Polling interval for report jobs (ms)
+const REPORT_POLL_INTERVAL = 1000;
+
 // Download report function
+// The report is generated as an async job: submit, poll its status, then download by id
 async function downloadReport(reportType, format) {
     // Show loading overlay
     showLoading();
 
     try {
-        // Construct API endpoint
-        const endpoint = `/api/v1/reports/${reportType}/${format}`;
-        
+        // Submit the report job
+        const submitResponse = await fetch('/api/v1/reports/jobs', {
+            method: 'POST',
+            headers: {
+                ...getAuthHeaders(),
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({ type: reportType, format: format })
+        });
+
+        if (!submitResponse.ok) {
+            throw new Error(`Error al generar el reporte: ${submitResponse.status}`);
+        }
+
+        let job = await submitResponse.json();
+
+        // Poll until the job finishes
+        while (job.status === 'PENDIENTE' || job.status === 'EN_PROCESO') {
+            await new Promise(resolve => setTimeout(resolve, REPORT_POLL_INTERVAL));
+            const statusResponse = await fetch(`/api/v1/reports/jobs/${job.id}`, {
+                method: 'GET',
+                headers: getAuthHeaders()
+            });
+            if (!statusResponse.ok) {
+                throw new Error(`Error al consultar el reporte: ${statusResponse.status}`);
+            }
+            job = await statusResponse.json();
+        }
+
+        if (job.status !== 'COMPLETADO') {
+            throw new Error(job.error || 'El reporte no se pudo generar');
+        }
+
         // Make API request
-        const response = await fetch(endpoint, {
+        const response = await fetch(job.downloadUrl, {
             method: 'GET',
             headers: getAuthHeaders()
         });
 
         if (!response.ok) {
-            throw new Error(`Error al generar el reporte: ${response.status}`);
+            throw new Error(`Error al descargar el reporte: ${response.status}`);
         }
 
         // Get the blob from response
@@ -0,0 +1,277 @@
+package com.catamaran.catamaranbackend.auth.application.service;
+
+import com.catamaran.catamaranbackend.auth.application.dto.ForgotPasswordRequest;
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.EmailOutboxEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.EmailOutboxRepositoryJpa;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.Role;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class EmailOutboxSenderTest {
+
+    private static final SmtpStandIn smtp = SmtpStandIn.start();
+
+    @DynamicPropertySource
+    static void mailServer(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::port);
+        registry.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.required", () -> "false");
+        // drain() se llama a mano
+        registry.add("mail.outbox.initial-delay", () -> "PT1H");
+        registry.add("mail.outbox.poll-interval", () -> "PT1H");
+        registry.add("mail.outbox.retry-base", () -> "PT0S");
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        smtp.close();
+    }
+
+    @Autowired
+    private PasswordRecoveryService passwordRecoveryService;
+
+    @Autowired
+    private EmailOutboxSender emailOutboxSender;
+
+    @Autowired
+    private EmailOutboxRepositoryJpa emailOutboxRepository;
+
+    @Autowired
+    private UserRepositoryJpa userRepository;
+
+    @BeforeEach
+    void resetServer() {
+        smtp.reset();
+    }
+
+    @Test
+    void passwordResetIsQueuedAndSentInOneConnection() {
+        for (int i = 0; i < 3; i++) {
+            userRepository.save(UserEntity.builder()
+                    .email("outbox-" + i + "@test.com")
+                    .username("outbox-" + i)
+                    .password("x")
+                    .role(Role.PROPIETARIO)
+                    .status(true)
+                    .uniqueId(UUID.randomUUID())
+                    .build());
+            assertTrue(passwordRecoveryService.requestPasswordReset(new ForgotPasswordRequest("outbox-" + i + "@test.com")).isSuccess());
+        }
+        // La solicitud solo escribe en la bandeja de salida, y el token no queda legible en ella
+        assertEquals(3, emailOutboxRepository.count());
+        for (EmailOutboxEntity queued : emailOutboxRepository.findAll()) {
+            assertTrue(queued.getHtmlBody().contains("token={{token}}"));
+            assertTrue(queued.getSealedSecret() != null);
+        }
+        assertEquals(0, smtp.connections.get());
+
+        emailOutboxSender.drain();
+
+        assertEquals(1, smtp.connections.get());
+        assertEquals(List.of("<outbox-0@test.com>", "<outbox-1@test.com>", "<outbox-2@test.com>"), smtp.recipients);
+        assertEquals(0, emailOutboxRepository.count());
+    }
+
+    @Test
+    void failingServerSchedulesRetriesAndOpensTheCircuit() {
+        Instant now = Instant.now();
+        EmailOutboxEntity email = emailOutboxRepository.save(EmailOutboxEntity.builder()
+                .recipient("retry@test.com")
+                .subject("Prueba")
+                .htmlBody("<p>Prueba</p>")
+                .status(EmailOutboxEntity.Status.PENDIENTE)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        smtp.rejecting = true;
+
+        // circuit-threshold = 3: tres rondas fallidas abren el circuito
+        for (int i = 0; i < 3; i++) {
+            emailOutboxSender.drain();
+        }
+        EmailOutboxEntity retried = emailOutboxRepository.findById(email.getId()).orElseThrow();
+        assertEquals(3, retried.getAttempts());
+        assertEquals(EmailOutboxEntity.Status.PENDIENTE, retried.getStatus());
+        assertTrue(retried.getLastError() != null);
+        assertEquals(3, smtp.connections.get());
+
+        // Circuito abierto: no se vuelve a conectar aunque el correo esté vencido
+        smtp.rejecting = false;
+        emailOutboxSender.drain();
+        assertEquals(3, smtp.connections.get());
+        assertEquals(1, emailOutboxRepository.count());
+    }
+
+    @Test
+    void rejectedRecipientsFailAloneAndDoNotOpenTheCircuit() {
+        smtp.rejectedRecipients.add("<typo@test.com>");
+
+        // Más rechazos seguidos que circuit-threshold: cada correo se descarta sin reintentos
+        for (int i = 0; i < 3; i++) {
+            EmailOutboxEntity typo = queue("typo@test.com");
+            emailOutboxSender.drain();
+            EmailOutboxEntity failed = emailOutboxRepository.findById(typo.getId()).orElseThrow();
+            assertEquals(EmailOutboxEntity.Status.FALLIDO, failed.getStatus());
+            assertEquals(1, failed.getAttempts());
+        }
+        assertEquals(3, smtp.connections.get());
+
+        // El servidor sigue disponible para los demás correos
+        EmailOutboxEntity valid = queue("valid@test.com");
+        emailOutboxSender.drain();
+        assertEquals(4, smtp.connections.get());
+        assertTrue(emailOutboxRepository.findById(valid.getId()).isEmpty());
+    }
+
+    private EmailOutboxEntity queue(String recipient) {
+        Instant now = Instant.now();
+        return emailOutboxRepository.save(EmailOutboxEntity.builder()
+                .recipient(recipient)
+                .subject("Prueba")
+                .htmlBody("<p>Prueba</p>")
+                .status(EmailOutboxEntity.Status.PENDIENTE)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    /**
+     * Servidor SMTP mínimo: acepta cualquier remitente y guarda los RCPT TO; responde 550 a los
+     * destinatarios de {@code rejectedRecipients}. Con {@code rejecting} responde 421 al conectar,
+     * como un servidor caído.
+     */
+    static final class SmtpStandIn implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> recipients = new CopyOnWriteArrayList<>();
+        final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+        volatile boolean rejecting;
+
+        private SmtpStandIn(ServerSocket serverSocket) {
+            this.serverSocket = serverSocket;
+        }
+
+        static SmtpStandIn start() {
+            try {
+                SmtpStandIn server = new SmtpStandIn(new ServerSocket(0));
+                Thread acceptor = new Thread(server::acceptLoop, "smtp-stand-in");
+                acceptor.setDaemon(true);
+                acceptor.start();
+                return server;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void reset() {
+            connections.set(0);
+            recipients.clear();
+            rejectedRecipients.clear();
+            rejecting = false;
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> handle(socket), "smtp-stand-in-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                if (rejecting) {
+                    reply(out, "421 localhost Service not available");
+                    return;
+                }
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250 localhost");
+                        case "RCPT" -> {
+                            String recipient = line.substring(line.indexOf(':') + 1).trim();
+                            if (rejectedRecipients.contains(recipient)) {
+                                reply(out, "550 5.1.1 User unknown");
+                            } else {
+                                recipients.add(recipient);
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // Se descarta el contenido
+                            }
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK"); // MAIL, RSET, NOOP
+                    }
+                }
+            } catch (IOException e) {
+                // El cliente cerró la conexión
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BoatControllerInstallmentBatchTest {
+
+    private static final int INSTALLMENTS = 240;
+
+    @Autowired
+    private BoatController boatController;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private UserRepositoryJpa userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void assignOwnerInsertsInstallmentScheduleInBatches() {
+        UserEntity owner = userRepository.save(UserEntity.builder()
+                .email("batch-owner@test.com")
+                .username("batch-owner")
+                .password("x")
+                .role(Role.PROPIETARIO)
+                .status(true)
+                .uniqueId(UUID.randomUUID())
+                .build());
+        BoatEntity boat = boatRepository.save(BoatEntity.builder()
+                .name("Batch")
+                .type(BoatType.TURISMO)
+                .price(INSTALLMENTS * 1000.0)
+                .balance(0.0)
+                .build());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<BoatEntity> response = boatController.assignOwner(boat.getId(), owner.getId(), 1000.0, 1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(INSTALLMENTS, statistics.getEntityInsertCount());
+        assertEquals(INSTALLMENTS, paymentRepository.findByBoatOwnerIdOrderByDateDesc(owner.getId()).size());
+
+        // 2 lecturas (bote y propietario) + 1 update del bote
+        // + 5 lotes de inserts (batch_size = 50) + ~5 nextval (allocationSize = 50).
+        // Sin lotes ni secuencias pooled serían más de 240 sentencias.
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 15, "Se prepararon " + statements + " sentencias para " + INSTALLMENTS + " cuotas");
+    }
+}
@@ -0,0 +1,124 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.catamaran.catamaranbackend.repository.StoredFileRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PaymentControllerConcurrentReceiptTest {
+
+    private static final int INSTALLMENTS = 8;
+    private static final int UPLOADS_PER_INSTALLMENT = 3;
+    private static final double INSTALLMENT_AMOUNT = 1000.0;
+
+    @TempDir
+    static Path receiptsDir;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", () -> receiptsDir.toString());
+        registry.add("storage.dir", () -> receiptsDir.resolve("blobs").toString());
+    }
+
+    @Autowired
+    private PaymentController paymentController;
+
+    @Autowired
+    private BoatController boatController;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private UserRepositoryJpa userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Test
+    void parallelReceiptUploadsCountEachInstallmentOnce() throws Exception {
+        UserEntity owner = userRepository.save(UserEntity.builder()
+                .email("receipt-owner@test.com")
+                .username("receipt-owner")
+                .password("x")
+                .role(Role.PROPIETARIO)
+                .status(true)
+                .uniqueId(UUID.randomUUID())
+                .build());
+        BoatEntity boat = boatRepository.save(BoatEntity.builder()
+                .name("Receipts")
+                .type(BoatType.TURISMO)
+                .price(INSTALLMENTS * INSTALLMENT_AMOUNT)
+                .balance(0.0)
+                .build());
+        boatController.assignOwner(boat.getId(), owner.getId(), INSTALLMENT_AMOUNT, 1);
+
+        List<PaymentEntity> installments = paymentRepository.findByBoatOwnerIdOrderByDateDesc(owner.getId());
+        assertEquals(INSTALLMENTS, installments.size());
+
+        // Todas las subidas arrancan a la vez: varias por cuota y todas sobre el mismo bote
+        ExecutorService executor = Executors.newFixedThreadPool(INSTALLMENTS * UPLOADS_PER_INSTALLMENT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> results = new ArrayList<>();
+        try {
+            for (PaymentEntity installment : installments) {
+                for (int i = 0; i < UPLOADS_PER_INSTALLMENT; i++) {
+                    MockMultipartFile file = new MockMultipartFile(
+                            "file", "recibo-" + i + ".pdf", "application/pdf", new byte[]{1, 2, 3});
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return (HttpStatus) paymentController.addReceipt(installment.getId(), file).getStatusCode();
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<HttpStatus> result : results) {
+                HttpStatus status = result.get();
+                assertTrue(status == HttpStatus.OK || status == HttpStatus.CONFLICT, "Estado inesperado " + status);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BoatEntity updated = boatRepository.findById(boat.getId()).orElseThrow();
+        assertEquals(INSTALLMENTS * INSTALLMENT_AMOUNT, updated.getBalance(), 0.001);
+        paymentRepository.findByBoatOwnerIdOrderByDateDesc(owner.getId())
+                .forEach(payment -> assertEquals(PaymentStatus.PAGADO, payment.getStatus()));
+
+        // Todas las subidas tienen el mismo contenido: un solo archivo, una referencia por cuota
+        List<StoredFileEntity> stored = storedFileRepository.findAll();
+        assertEquals(1, stored.size());
+        assertEquals(INSTALLMENTS, stored.get(0).getRefCount());
+    }
+}
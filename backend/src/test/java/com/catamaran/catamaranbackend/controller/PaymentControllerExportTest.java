@@ -0,0 +1,142 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.ReasonPayment;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = "ROLE_ADMIN")
+class PaymentControllerExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepositoryJpa userRepository;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private UserEntity owner;
+    private BoatEntity boat;
+    private PaymentEntity large;
+    private PaymentEntity small;
+
+    @BeforeEach
+    void createPayments() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = userRepository.save(UserEntity.builder()
+                .email("export-" + suffix + "@test.com")
+                .username("export-" + suffix)
+                .fullName("Pérez, \"Juan\"")
+                .password("x")
+                .role(Role.PROPIETARIO)
+                .status(true)
+                .uniqueId(UUID.randomUUID())
+                .build());
+        boat = boatRepository.save(BoatEntity.builder()
+                .name("Lancha\nNorte")
+                .type(BoatType.TURISMO)
+                .price(1_200_000_000.0)
+                .balance(0.0)
+                .owner(owner)
+                .build());
+        large = paymentRepository.save(PaymentEntity.builder()
+                .boat(boat)
+                .mount(350_000_000.0)
+                .date(LocalDateTime.of(2024, 3, 1, 10, 0))
+                .reason(ReasonPayment.PAGO)
+                .status(PaymentStatus.PAGADO)
+                .build());
+        small = paymentRepository.save(PaymentEntity.builder()
+                .boat(boat)
+                .mount(0.5)
+                .date(LocalDateTime.of(2024, 4, 15, 8, 30, 15))
+                .reason(ReasonPayment.ADMIN)
+                .status(PaymentStatus.POR_PAGAR)
+                .build());
+    }
+
+    @Test
+    void csvQuotesEscapesAndWritesPlainNumbers() throws Exception {
+        MockHttpServletResponse response = export("csv");
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentType().startsWith("text/csv"), response.getContentType());
+        String boatColumns = boat.getId() + ",\"Lancha\nNorte\"," + owner.getId() + ",\"Pérez, \"\"Juan\"\"\"";
+        String expected = "id,date,amount,reason,status,invoiceUrl,boatId,boatName,ownerId,ownerName\r\n"
+                + large.getId() + ",2024-03-01T10:00:00,350000000,PAGO,PAGADO,," + boatColumns + "\r\n"
+                + small.getId() + ",2024-04-15T08:30:15,0.5,ADMIN,POR_PAGAR,," + boatColumns + "\r\n";
+        assertEquals(expected, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        MockHttpServletResponse response = export("ndjson");
+
+        assertEquals(200, response.getStatus());
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(large.getId().longValue(), first.get("id").asLong());
+        assertEquals(350_000_000.0, first.get("amount").asDouble());
+        assertEquals("Lancha\nNorte", first.get("boatName").asText());
+        assertEquals("Pérez, \"Juan\"", first.get("ownerName").asText());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(small.getId().longValue(), second.get("id").asLong());
+        assertEquals("POR_PAGAR", second.get("status").asText());
+    }
+
+    @Test
+    void unknownFormatIsABadRequest() throws Exception {
+        MockHttpServletResponse response = export("xml");
+
+        assertEquals(400, response.getStatus());
+        assertTrue(objectMapper.readTree(response.getContentAsString(StandardCharsets.UTF_8)).has("error"));
+    }
+
+    private MockHttpServletResponse export(String format) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/payments/export")
+                        .param("format", format)
+                        .param("ownerId", owner.getId().toString()))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+}
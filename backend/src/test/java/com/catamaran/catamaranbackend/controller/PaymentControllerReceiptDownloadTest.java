@@ -0,0 +1,147 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.catamaran.catamaranbackend.domain.PaymentEntity;
+import com.catamaran.catamaranbackend.domain.PaymentStatus;
+import com.catamaran.catamaranbackend.domain.ReasonPayment;
+import com.catamaran.catamaranbackend.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = "ROLE_ADMIN")
+class PaymentControllerReceiptDownloadTest {
+
+    private static final int SIZE = 1000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private byte[] content;
+    private String url;
+    private String etag;
+
+    @BeforeEach
+    void uploadReceipt() throws Exception {
+        content = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        // Contenido distinto por test: cada uno tiene su propio archivo en el almacén
+        content[0] = (byte) System.nanoTime();
+        PaymentEntity payment = paymentRepository.save(PaymentEntity.builder()
+                .mount(100.0)
+                .reason(ReasonPayment.ADMIN)
+                .status(PaymentStatus.POR_PAGAR)
+                .build());
+        assertEquals(200, mockMvc.perform(multipart("/api/v1/payments/" + payment.getId() + "/receipt")
+                        .file(new MockMultipartFile("file", "recibo.pdf", "application/pdf", content)))
+                .andReturn().getResponse().getStatus());
+
+        url = "/api/v1/payments/" + payment.getId() + "/download-receipt";
+        MockHttpServletResponse full = download(get(url));
+        assertEquals(200, full.getStatus());
+        assertEquals("bytes", full.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertArrayEquals(content, full.getContentAsByteArray());
+        etag = full.getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void singleRange() throws Exception {
+        MockHttpServletResponse response = download(get(url).header(HttpHeaders.RANGE, "bytes=100-199"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/" + SIZE, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), response.getContentAsByteArray());
+    }
+
+    @Test
+    void suffixRange() throws Exception {
+        MockHttpServletResponse response = download(get(url).header(HttpHeaders.RANGE, "bytes=-50"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 950-999/" + SIZE, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 950, SIZE), response.getContentAsByteArray());
+    }
+
+    @Test
+    void unsatisfiableRange() throws Exception {
+        MockHttpServletResponse response = download(get(url).header(HttpHeaders.RANGE, "bytes=5000-6000"));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + SIZE, response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void ifRangeMismatchSendsTheWholeFile() throws Exception {
+        MockHttpServletResponse response = download(get(url)
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, "\"otra-version\""));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+
+        // Con el ETag actual sí se respeta el rango
+        MockHttpServletResponse matching = download(get(url)
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, etag));
+        assertEquals(206, matching.getStatus());
+    }
+
+    @Test
+    void multipleRangesUseMultipartByteranges() throws Exception {
+        MockHttpServletResponse response = download(get(url).header(HttpHeaders.RANGE, "bytes=0-9,500-509"));
+
+        assertEquals(206, response.getStatus());
+        MediaType contentType = MediaType.parseMediaType(response.getContentType());
+        assertEquals("multipart/byteranges", contentType.getType() + "/" + contentType.getSubtype());
+        String boundary = contentType.getParameter("boundary");
+
+        byte[] body = response.getContentAsByteArray();
+        assertEquals(body.length, Integer.parseInt(response.getHeader(HttpHeaders.CONTENT_LENGTH)));
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("Content-Range: bytes 0-9/" + SIZE));
+        assertTrue(text.contains("Content-Range: bytes 500-509/" + SIZE));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+
+        int first = text.indexOf("\r\n\r\n") + 4;
+        assertArrayEquals(Arrays.copyOfRange(content, 0, 10), Arrays.copyOfRange(body, first, first + 10));
+        int second = text.indexOf("\r\n\r\n", text.indexOf("bytes 500-509")) + 4;
+        assertArrayEquals(Arrays.copyOfRange(content, 500, 510), Arrays.copyOfRange(body, second, second + 10));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        MockHttpServletResponse response = download(get(url).header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
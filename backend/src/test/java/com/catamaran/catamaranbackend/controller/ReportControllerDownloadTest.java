@@ -0,0 +1,47 @@
+package com.catamaran.catamaranbackend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = "ROLE_ADMIN")
+class ReportControllerDownloadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void excelReportIsStreamed() throws Exception {
+        MockHttpServletResponse response = download("/api/v1/reports/payments/excel?status=POR_PAGAR");
+
+        assertEquals(200, response.getStatus());
+        byte[] body = response.getContentAsByteArray();
+        // Un .xlsx es un zip: empieza con "PK"
+        assertTrue(body.length > 2 && body[0] == 'P' && body[1] == 'K');
+    }
+
+    @Test
+    void invalidFilterIsABadRequest() throws Exception {
+        MockHttpServletResponse response = download("/api/v1/reports/payments/excel?status=NO_EXISTE");
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"error\""));
+    }
+
+    private MockHttpServletResponse download(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url)).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,216 @@
+package com.catamaran.catamaranbackend.controller;
+
+import com.catamaran.catamaranbackend.auth.application.dto.UserPrincipal;
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.BoatDocumentEntity;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.repository.BoatDocumentRepository;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import com.catamaran.catamaranbackend.repository.UploadSessionRepository;
+import com.catamaran.catamaranbackend.service.ResumableUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "uploads.resumable.max-chunk-size=64KB")
+@AutoConfigureMockMvc
+class UploadControllerTest {
+
+    private static final String CHUNK_TYPE = "application/offset+octet-stream";
+    private static final int LENGTH = 150_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private UserRepositoryJpa userRepository;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Autowired
+    private BoatDocumentRepository boatDocumentRepository;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    private UserEntity owner;
+    private BoatEntity boat;
+    private byte[] content;
+
+    @BeforeEach
+    void createBoat() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = userRepository.save(UserEntity.builder()
+                .email("upload-" + suffix + "@test.com")
+                .username("upload-" + suffix)
+                .password("x")
+                .role(Role.PROPIETARIO)
+                .status(true)
+                .uniqueId(UUID.randomUUID())
+                .build());
+        boat = boatRepository.save(BoatEntity.builder()
+                .name("Uploads " + suffix)
+                .type(BoatType.TURISMO)
+                .price(1000.0)
+                .balance(0.0)
+                .owner(owner)
+                .build());
+        content = new byte[LENGTH];
+        new Random(42).nextBytes(content);
+    }
+
+    @Test
+    void chunksAreResumedAndCompletedIntoADocument() throws Exception {
+        String location = createUpload();
+        String id = location.substring(location.lastIndexOf('/') + 1);
+
+        assertEquals("60000", sendChunk(location, 0, 0, 60_000).getHeader("Upload-Offset"));
+
+        // Un offset distinto de lo recibido se rechaza sin escribir nada
+        assertEquals(409, sendChunk(location, 0, 0, 1_000).getStatus());
+
+        // La conexión se corta a mitad de la parte: lo que llegó queda guardado
+        InputStream cutOff = new CuttingInputStream(Arrays.copyOfRange(content, 60_000, 100_000), 25_000);
+        assertThrows(IOException.class, () -> resumableUploadService.append(id, owner.getId(), 60_000, cutOff));
+        MockHttpServletResponse offset = mockMvc.perform(head(location).with(asOwner())).andReturn().getResponse();
+        assertEquals("85000", offset.getHeader("Upload-Offset"));
+        assertEquals(String.valueOf(LENGTH), offset.getHeader("Upload-Length"));
+
+        // Completar antes de tiempo no consume la subida
+        assertEquals(409, mockMvc.perform(post(location + "/complete").with(asOwner())).andReturn().getResponse().getStatus());
+
+        assertEquals("150000", sendChunk(location, 85_000, 85_000, LENGTH).getHeader("Upload-Offset"));
+        MockHttpServletResponse completed = mockMvc.perform(post(location + "/complete").with(asOwner()))
+                .andReturn().getResponse();
+        assertEquals(201, completed.getStatus());
+
+        BoatDocumentEntity document = boatDocumentRepository.findAll().stream()
+                .filter(d -> d.getBoat().getId().equals(boat.getId()))
+                .findFirst()
+                .orElseThrow();
+        String expectedHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(expectedHash, document.getFileHash());
+        assertEquals(LENGTH, document.getFileSize());
+        assertEquals(false, uploadSessionRepository.existsById(id));
+
+        byte[] downloaded = mockMvc.perform(get(document.getUrl()).with(asAdmin()))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(content, downloaded);
+    }
+
+    @Test
+    void oversizedChunkKeepsTheAllowedPart() throws Exception {
+        String location = createUpload();
+
+        // max-chunk-size = 64KB: se guardan 65536 bytes y se avisa que el resto no entró
+        MockHttpServletResponse response = sendChunk(location, 0, 0, 100_000);
+        assertEquals(413, response.getStatus());
+        assertEquals("65536", mockMvc.perform(head(location).with(asOwner())).andReturn().getResponse()
+                .getHeader("Upload-Offset"));
+
+        // Una parte que pasa del tamaño declarado también se corta
+        assertEquals(204, sendChunk(location, 65_536, 65_536, 131_072).getStatus());
+        byte[] tooLong = new byte[LENGTH - 131_072 + 10];
+        System.arraycopy(content, 131_072, tooLong, 0, LENGTH - 131_072);
+        assertEquals(413, mockMvc.perform(patch(location).with(asOwner()).contentType(CHUNK_TYPE)
+                .header("Upload-Offset", 131_072).content(tooLong)).andReturn().getResponse().getStatus());
+        assertEquals(201, mockMvc.perform(post(location + "/complete").with(asOwner())).andReturn().getResponse().getStatus());
+    }
+
+    private String createUpload() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(post("/api/v1/uploads").with(asOwner())
+                        .param("kind", "DOCUMENT")
+                        .param("targetId", boat.getId().toString())
+                        .param("name", "Plano")
+                        .param("filename", "plano.pdf")
+                        .param("contentType", "application/pdf")
+                        .header("Upload-Length", LENGTH))
+                .andReturn().getResponse();
+        assertEquals(201, response.getStatus());
+        return response.getHeader("Location");
+    }
+
+    private MockHttpServletResponse sendChunk(String location, long offset, int from, int to) throws Exception {
+        return mockMvc.perform(patch(location).with(asOwner()).contentType(CHUNK_TYPE)
+                        .header("Upload-Offset", offset)
+                        .content(Arrays.copyOfRange(content, from, to)))
+                .andReturn().getResponse();
+    }
+
+    private RequestPostProcessor asOwner() {
+        return as(owner.getId(), "ROLE_PROPIETARIO");
+    }
+
+    private static RequestPostProcessor asAdmin() {
+        return as(0L, "ROLE_ADMIN");
+    }
+
+    private static RequestPostProcessor as(Long id, String role) {
+        return authentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(id, "user-" + id, null), null, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    /**
+     * Entrega los primeros {@code limit} bytes y después falla, como una conexión cortada.
+     */
+    private static final class CuttingInputStream extends InputStream {
+
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        CuttingInputStream(byte[] data, int limit) {
+            this.data = data;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= limit) {
+                throw new IOException("Conexión cortada");
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(data, position, b, off, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.auth.infrastructure.entity.UserEntity;
+import com.catamaran.catamaranbackend.auth.infrastructure.repository.UserRepositoryJpa;
+import com.catamaran.catamaranbackend.domain.BoatEntity;
+import com.catamaran.catamaranbackend.domain.BoatType;
+import com.catamaran.catamaranbackend.domain.Role;
+import com.catamaran.catamaranbackend.repository.BoatRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+
+import static com.catamaran.catamaranbackend.domain.AdminRollupEntity.OWNERS;
+import static com.catamaran.catamaranbackend.domain.AdminRollupEntity.OWNERS_WITH_BOATS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class AdminRollupServiceTest {
+
+    @Autowired
+    private AdminRollupService adminRollupService;
+
+    @Autowired
+    private UserRepositoryJpa userRepository;
+
+    @Autowired
+    private BoatRepository boatRepository;
+
+    @Test
+    void ownersWithBoatsCountsOnlyPropietarios() {
+        adminRollupService.reconcile();
+        long initial = ownersWithBoats();
+
+        UserEntity admin = userRepository.save(UserEntity.builder()
+                .email("rollup-" + UUID.randomUUID() + "@test.com")
+                .username("rollup-" + UUID.randomUUID())
+                .password("x")
+                .role(Role.ADMIN)
+                .status(true)
+                .uniqueId(UUID.randomUUID())
+                .build());
+        BoatEntity boat = boatRepository.save(BoatEntity.builder()
+                .name("Rollup")
+                .type(BoatType.TURISMO)
+                .price(1000.0)
+                .balance(0.0)
+                .owner(admin)
+                .build());
+        assertEquals(initial, ownersWithBoats());
+
+        // Pasa a ser propietario con un bote ya asignado
+        admin.setRole(Role.PROPIETARIO);
+        userRepository.save(admin);
+        assertEquals(initial + 1, ownersWithBoats());
+
+        boatRepository.delete(boat);
+        assertEquals(initial, ownersWithBoats());
+
+        // El incremento y la reconciliación dan lo mismo
+        boatRepository.save(BoatEntity.builder()
+                .name("Rollup 2")
+                .type(BoatType.TURISMO)
+                .price(1000.0)
+                .balance(0.0)
+                .owner(admin)
+                .build());
+        long incremental = ownersWithBoats();
+        adminRollupService.reconcile();
+        assertEquals(incremental, ownersWithBoats());
+        assertEquals(initial + 1, incremental);
+    }
+
+    private long ownersWithBoats() {
+        return adminRollupService.count(OWNERS, OWNERS_WITH_BOATS);
+    }
+}
@@ -0,0 +1,50 @@
+package com.catamaran.catamaranbackend.service;
+
+import com.catamaran.catamaranbackend.domain.StoredFileEntity;
+import com.catamaran.catamaranbackend.repository.StoredFileRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class FileStorageServiceTest {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Test
+    void lastReleaseRemovesTheRowAndTheFile() throws Exception {
+        byte[] content = ("contenido " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        StoredFileEntity first = fileStorageService.store(new ByteArrayInputStream(content), "a.pdf", "application/pdf");
+        fileStorageService.store(new ByteArrayInputStream(content), "b.pdf", "application/pdf");
+        Path path = fileStorageService.pathOf(first);
+        Path tombstone = path.resolveSibling(path.getFileName() + ".deleted");
+
+        fileStorageService.release(first.getHash());
+        assertEquals(1, storedFileRepository.findById(first.getHash()).orElseThrow().getRefCount());
+        assertTrue(Files.exists(path));
+
+        fileStorageService.release(first.getHash());
+        assertTrue(storedFileRepository.findById(first.getHash()).isEmpty());
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(tombstone));
+
+        // El mismo contenido se puede volver a guardar en el mismo lugar
+        StoredFileEntity again = fileStorageService.store(new ByteArrayInputStream(content), "c.pdf", "application/pdf");
+        assertEquals(path, fileStorageService.pathOf(again));
+        assertTrue(Files.exists(path));
+    }
+}